@@ -0,0 +1,442 @@
+package benchmark;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.IOException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ThreadMXBean;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import frame.Warehouse;
+
+import optimization.Loss;
+import optimization.Optimizers;
+import optimization.Portfolio;
+import optimization.Problem;
+import optimization.Coverage;
+
+import monitoring.Trace;
+
+import util.Generator;
+import util.Parser;
+import util.State;
+
+/*
+ *	The Benchmark class measures the performance of the hot operations and of every optimizer so
+ *	that changes can be checked for speedups and regressions. Microbenchmarks cover the score and
+ *	loss evaluation, neighbour generation and parsing, macrobenchmarks run every optimizer on the
+ *	problem files and on large catalogs created by the Generator class. With -scaling the parser
+ *	and the optimizers are run on catalogs of increasing size to measure how they scale. Every
+ *	benchmark is warmed up first and then run repeatedly for a fixed time. It reports the
+ *	throughput, the bytes allocated per operation by the benchmark thread, the time spent in
+ *	garbage collection and for optimizers the average score of the solutions. Results can be saved
+ *	to a file and compared against a stored baseline, a benchmark is marked as a regression if its
+ *	throughput or solution quality got worse.
+ *	With -trace directory every optimizer runs once more after its measurement while recording a
+ *	convergence trace, which is written to the directory as a CSV file.
+ *	All benchmarks run one after another in the same JVM, so the JIT profile of earlier benchmarks
+ *	influences later ones. This is good enough for quick checks and the quality baseline, the
+ *	throughput is measured more reliably by the forked JMH benchmarks in the jmh directory.
+ *
+ *	Usage: java benchmark.Benchmark [-filter text] [-save file] [-baseline file] [-scaling] [-trace directory]
+ */
+
+public class Benchmark {
+
+	private static final String WAREHOUSE_FILE = "problem_files/problem1.txt";
+	private static final String[] ORDER_FILES = {"problem_files/order11.txt", "problem_files/order12.txt"};
+
+	// measurement times in milliseconds
+	private static final long MICRO_WARMUP = 500;
+	private static final long MICRO_MEASUREMENT = 1500;
+	private static final long MACRO_WARMUP = 1000;
+	private static final long MACRO_MEASUREMENT = 3000;
+	// minimal number of measured runs of an optimizer so the average quality is meaningful
+	private static final int MACRO_MIN_RUNS = 5;
+
+	// number of states scored at once by the batch evaluation benchmark
+	private static final int BATCH_SIZE = 64;
+
+	// parameters of the optimizers requiring a state count and of the portfolio
+	private static final int STATE_COUNT = 8;
+	private static final long PORTFOLIO_BUDGET = 1000;
+
+	// relative throughput loss and absolute average score loss that count as a regression
+	// (measurements and stochastic optimizers are noisy)
+	private static final double THROUGHPUT_TOLERANCE = 0.15;
+	private static final double SCORE_TOLERANCE = 0.5;
+
+	// seed and shape of the generated catalogs, the default run uses the first size only
+	private static final long CATALOG_SEED = 42;
+	private static final int[] CATALOG_SIZES = {5000, 10000, 20000, 50000};
+	private static final int CATALOG_ITEMS_PER_PSU = 10;
+	private static final int CATALOG_ORDER_SIZE = 30;
+	private static final double CATALOG_ZIPF_EXPONENT = 0.8;
+
+	// a benchmarked operation, returns a value that is consumed so the JIT can not remove the work
+	private interface Workload {
+		long run();
+	}
+
+	// consumes the results of all workloads
+	private static volatile long sink;
+
+	// results of the current run, in the order they were measured
+	private static LinkedHashMap<String, double[]> results = new LinkedHashMap<>();
+
+	// directory the convergence traces of the optimizers are written to, null if not tracing
+	private static String traceDirectory;
+
+	public static void main(String[] args) {
+		String filter = "";
+		String savePath = null;
+		String baselinePath = null;
+		boolean scaling = false;
+		// parse the command line arguments
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-scaling")) {
+				scaling = true;
+				continue;
+			} else if (i + 1 == args.length) {
+				break;
+			}
+			if (args[i].equals("-filter")) {
+				filter = args[i + 1];
+			} else if (args[i].equals("-save")) {
+				savePath = args[i + 1];
+			} else if (args[i].equals("-baseline")) {
+				baselinePath = args[i + 1];
+			} else if (args[i].equals("-trace")) {
+				traceDirectory = args[i + 1];
+				new File(traceDirectory).mkdirs();
+			}
+			i++;
+		}
+
+		System.out.println(String.format(Locale.ROOT, "%-40s %14s %14s %10s %16s",
+				"benchmark", "ops/s", "bytes/op", "gc ms", "avg score"));
+
+		microbenchmarks(filter);
+		for (String orderFile : ORDER_FILES) {
+			Warehouse.readWarehouseFile(WAREHOUSE_FILE);
+			Warehouse.readOrderFile(orderFile);
+			String name = orderFile.substring(orderFile.lastIndexOf('/') + 1, orderFile.lastIndexOf('.'));
+			macrobenchmarks(name, Warehouse.problem(), filter);
+		}
+		for (int i = 0; i < (scaling ? CATALOG_SIZES.length : 1); i++) {
+			catalogBenchmarks(CATALOG_SIZES[i], filter);
+		}
+
+		if (savePath != null) {
+			save(savePath);
+		}
+		if (baselinePath != null && !compare(baselinePath)) {
+			// signal regressions to scripts running the benchmark
+			System.exit(1);
+		}
+	}
+
+	private static void microbenchmarks(String filter) {
+		Warehouse.readWarehouseFile(WAREHOUSE_FILE);
+		Warehouse.readOrderFile(ORDER_FILES[1]);
+		final Problem problem = Warehouse.problem();
+		final SplittableRandom rand = new SplittableRandom(State.nextSeed());
+		final boolean[] state = State.randomState(problem.psuCount(), rand);
+		final Coverage coverage = new Coverage(problem, state.clone());
+		final long[] neighbourScores = new long[problem.psuCount()];
+		final boolean[][] batch = new boolean[BATCH_SIZE][];
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			batch[i] = State.randomState(problem.psuCount(), rand);
+		}
+
+		measure("loss.score", filter, false, new Workload() {
+			public long run() {
+			        return Loss.score(problem, state);
+			}
+		});
+		measure("loss.scores (batch of " + BATCH_SIZE + ")", filter, false, new Workload() {
+			public long run() {
+			        return Loss.scores(problem, batch)[0];
+			}
+		});
+		measure("loss.delta (all flips)", filter, false, new Workload() {
+			public long run() {
+			        long sum = 0;
+			        for (int i = 0; i < problem.psuCount(); i++) {
+			                sum += Loss.delta(coverage, i);
+			        }
+			        return sum;
+			}
+		});
+		measure("loss.neighbourScores (all flips)", filter, false, new Workload() {
+			public long run() {
+			        Loss.neighbourScores(problem, state, neighbourScores);
+			        return neighbourScores[0];
+			}
+		});
+		measure("loss.float", filter, false, new Workload() {
+			public long run() {
+			        return Float.floatToIntBits(Loss.loss(state));
+			}
+		});
+		measure("state.generateNeighbourhood", filter, false, new Workload() {
+			public long run() {
+			        return State.generateNeighbourhood(state).length;
+			}
+		});
+		measure("state.randomNeighbour", filter, false, new Workload() {
+			public long run() {
+			        return State.randomNeighbour(state, rand).length;
+			}
+		});
+		measure("parser.parseWarehouse", filter, false, new Workload() {
+			public long run() {
+			        return Parser.parseWarehouse(WAREHOUSE_FILE).length;
+			}
+		});
+		measure("parser.parseOrder", filter, false, new Workload() {
+			public long run() {
+			        return Parser.parseOrder(ORDER_FILES[1]).length;
+			}
+		});
+	}
+
+	private static void macrobenchmarks(String instance, final Problem problem, String filter) {
+		measure("hillClimbing/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Optimizers.hillClimbing(problem));
+			}
+		});
+		measure("firstChoiceHillClimbing/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Optimizers.firstChoiceHillClimbing(problem));
+			}
+		});
+		measure("localBeamSearch/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Optimizers.localBeamSearch(problem, STATE_COUNT));
+			}
+		});
+		measure("stochasticBeamSearch/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Optimizers.stochasticBeamSearch(problem, STATE_COUNT));
+			}
+		});
+		measure("parallelHillClimbing/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Optimizers.parallelHillClimbing(problem, STATE_COUNT));
+			}
+		});
+		measure("simulatedAnnealing/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Optimizers.simulatedAnnealing(problem));
+			}
+		});
+		measure("iteratedLocalSearch/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Optimizers.iteratedLocalSearch(problem));
+			}
+		});
+		measure("portfolio/" + instance, filter, true, new Workload() {
+			public long run() {
+			        return Loss.score(problem, Portfolio.optimize(problem, STATE_COUNT, PORTFOLIO_BUDGET));
+			}
+		});
+	}
+
+	private static void measure(String name, String filter, boolean macro, Workload workload) {
+		if (!name.contains(filter)) {
+			return;
+		}
+
+		// warm up so the measured code is compiled by the JIT
+		long warmupEnd = System.nanoTime() + (macro ? MACRO_WARMUP : MICRO_WARMUP) * 1000000;
+		while (System.nanoTime() < warmupEnd) {
+			sink += workload.run();
+		}
+
+		long gcTimeBefore = gcTime();
+		long allocatedBefore = allocatedBytes();
+		long startTime = System.nanoTime();
+		long measurementEnd = startTime + (macro ? MACRO_MEASUREMENT : MICRO_MEASUREMENT) * 1000000;
+		int minRuns = macro ? MACRO_MIN_RUNS : 1;
+
+		// run the workload until the measurement time is over, macrobenchmarks sum up their scores
+		long operations = 0;
+		double scoreSum = 0;
+		while (operations < minRuns || System.nanoTime() < measurementEnd) {
+			long value = workload.run();
+			sink += value;
+			scoreSum += value;
+			operations++;
+		}
+
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		double opsPerSecond = operations / seconds;
+		double bytesPerOp = (double) (allocatedBytes() - allocatedBefore) / operations;
+		double gcMillis = gcTime() - gcTimeBefore;
+		// the average score only describes the solution quality of optimizers
+		double avgScore = macro ? scoreSum / operations : Double.NaN;
+
+		results.put(name, new double[] {opsPerSecond, bytesPerOp, gcMillis, avgScore});
+		// microbenchmarks have no solution, their score column stays empty
+		System.out.println(String.format(Locale.ROOT, "%-40s %14.2f %14.0f %10.0f %16s",
+				name, opsPerSecond, bytesPerOp, gcMillis,
+				macro ? String.format(Locale.ROOT, "%.2f", avgScore) : "-"));
+
+		if (macro && traceDirectory != null) {
+			trace(name, workload);
+		}
+	}
+
+	private static void trace(String name, Workload workload) {
+		// run the optimizer once more while recording its convergence
+		Trace trace = new Trace();
+		trace.setMetadata("benchmark", name);
+		trace.setMetadata("psu_count", Warehouse.psuCount());
+		trace.setMetadata("order_size", Warehouse.orderSize());
+		// the runs of the workload draw their seeds from the seed of the trace
+		long seed = State.nextSeed();
+		trace.setMetadata("seed", seed);
+		State.setThreadSeed(seed);
+		Trace.start(trace);
+		long score;
+		try {
+			score = workload.run();
+		} finally {
+			Trace.stop();
+			State.clearThreadSeed();
+		}
+		trace.setMetadata("final_score", score);
+
+		try {
+			trace.export(traceDirectory + File.separator + name.replace('/', '_') + ".csv");
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	private static long allocatedBytes() {
+		// bytes allocated by the benchmark thread, threads started by optimizers are not included
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	private static long gcTime() {
+		long total = 0;
+		// sum up the collection time of all garbage collectors
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(gc.getCollectionTime(), 0);
+		}
+		return total;
+	}
+
+	private static void catalogBenchmarks(int psuCount, String filter) {
+		final String prefix;
+		try {
+			// write the catalog into temporary files so parsing it can be measured as well
+			File directory = File.createTempFile("catalog", "");
+			directory.delete();
+			directory.mkdir();
+			directory.deleteOnExit();
+			prefix = directory.getPath() + File.separator + "catalog" + psuCount;
+
+			Generator generator = new Generator();
+			generator.setSeed(CATALOG_SEED);
+			generator.setPsuCount(psuCount);
+			generator.setItemCount(psuCount / 2);
+			generator.setItemsPerPsu(CATALOG_ITEMS_PER_PSU, CATALOG_ITEMS_PER_PSU);
+			generator.setZipfExponent(CATALOG_ZIPF_EXPONENT);
+			generator.setOrderSize(CATALOG_ORDER_SIZE);
+			generator.generate();
+			generator.write(prefix);
+			new File(prefix + "_warehouse.txt").deleteOnExit();
+			new File(prefix + "_order1.txt").deleteOnExit();
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			return;
+		}
+
+		measure("parser.parseWarehouse/catalog" + psuCount, filter, false, new Workload() {
+			public long run() {
+			        return Parser.parseWarehouse(prefix + "_warehouse.txt").length;
+			}
+		});
+
+		Warehouse.readWarehouseFile(prefix + "_warehouse.txt");
+		Warehouse.readOrderFile(prefix + "_order1.txt");
+		macrobenchmarks("catalog" + psuCount, Warehouse.problem(), filter);
+	}
+
+	private static void save(String path) {
+		try {
+			PrintWriter writer = new PrintWriter(new FileWriter(path));
+			// one line per benchmark: name, throughput, bytes per operation, gc time, average score
+			for (Map.Entry<String, double[]> entry : results.entrySet()) {
+				double[] values = entry.getValue();
+				writer.println(String.format(Locale.ROOT, "%s\t%f\t%f\t%f\t%f",
+						entry.getKey(), values[0], values[1], values[2], values[3]));
+			}
+			writer.close();
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	private static boolean compare(String path) {
+		List<String> regressions = new ArrayList<>();
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(path));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t");
+				double[] current = results.get(fields[0]);
+				if (current == null) {
+					// benchmark was filtered out in this run
+					continue;
+				}
+
+				double baselineOps = Double.parseDouble(fields[1]);
+				double baselineScore = Double.parseDouble(fields[4]);
+				if (current[0] < baselineOps * (1 - THROUGHPUT_TOLERANCE)) {
+					regressions.add(String.format(Locale.ROOT, "%s: throughput %.2f -> %.2f ops/s",
+							fields[0], baselineOps, current[0]));
+				}
+				if (current[3] < baselineScore - SCORE_TOLERANCE) {
+					regressions.add(String.format(Locale.ROOT, "%s: average score %.2f -> %.2f",
+							fields[0], baselineScore, current[3]));
+				}
+			}
+			reader.close();
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			return false;
+		}
+
+		// print the result of the comparison
+		if (regressions.isEmpty()) {
+			System.out.println("\nNo regressions compared to " + path);
+			return true;
+		}
+		System.out.println("\nRegressions compared to " + path + ":");
+		for (String regression : regressions) {
+			System.out.println("  " + regression);
+		}
+		return false;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,345 @@
+package benchmark;
+
+import java.io.IOException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import frame.PSU;
+
+import optimization.Loss;
+import optimization.Optimizers;
+import optimization.Parameters;
+import optimization.Problem;
+
+import util.Parser;
+
+/*
+ *	The Tuner class searches good parameters for the optimizers and writes them as profiles that
+ *	the optimizers load at runtime (see the Parameters class). The given instances are grouped by
+ *	instance class and every class is tuned on its own. Simulated annealing (initial temperature,
+ *	temperature decrease, step delay and loss scale), stochastic local beam search (beam width) and
+ *	iterated local search (restart count) are tuned separately with successive halving: random
+ *	configurations and the current default are evaluated on every instance of the class, the best
+ *	third is kept and evaluated again with three times as many trials until one is left. A trial
+ *	runs the optimizer repeatedly for a fixed CPU time budget and reports the best score found, so
+ *	slow configurations are only good if they find better solutions in the same time. Configurations
+ *	are compared by their average rank over the instances. All trials of a round run in parallel.
+ *
+ *	Usage: java benchmark.Tuner -warehouse file -order file [-order file ...] [-warehouse file ...]
+ *	       [-out file] [-configs n] [-budget ms] [-seed n]
+ */
+
+public class Tuner {
+
+	// only the best 1 / ELIMINATION_RATE of the configurations survive a round
+	private static final int ELIMINATION_RATE = 3;
+	// number of random configurations per algorithm and instance class
+	private static final int DEFAULT_CONFIGURATIONS = 26;
+	// CPU time of a single trial in milliseconds
+	private static final long DEFAULT_BUDGET = 200;
+	// a run that takes this many budgets is interrupted so bad configurations can not stall the tuner
+	private static final int MAX_OVERRUN = 5;
+
+	// the tuned algorithms, each one only depends on its own parameters
+	private enum Algorithm {
+		SIMULATED_ANNEALING, STOCHASTIC_BEAM_SEARCH, ITERATED_LOCAL_SEARCH
+	}
+
+	private final Random rand;
+	private final long budget;
+	private final int configurationCount;
+
+	private final int threadCount = Runtime.getRuntime().availableProcessors();
+	private final ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+	private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+
+	public static void main(String[] args) {
+		String outPath = "profiles.properties";
+		long seed = 1;
+		long budget = DEFAULT_BUDGET;
+		int configurations = DEFAULT_CONFIGURATIONS;
+		// instances grouped by instance class
+		Map<String, List<Problem>> classes = new LinkedHashMap<>();
+
+		PSU[] psus = null;
+		try {
+			// parse the command line arguments, orders belong to the previous warehouse
+			for (int i = 0; i + 1 < args.length; i += 2) {
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-warehouse":
+						psus = Parser.parseWarehouse(value);
+						if (psus == null) {
+							System.err.println("Could not parse warehouse file " + value);
+							return;
+						}
+						break;
+					case "-order":
+						int[] order = psus == null ? null : Parser.parseOrder(value);
+						if (order == null) {
+							System.err.println("Could not parse order file " + value + " (a warehouse must be given first)");
+							return;
+						}
+						Problem problem = Problem.of(psus, order);
+						String instanceClass = Parameters.instanceClass(problem);
+						if (!classes.containsKey(instanceClass)) {
+							classes.put(instanceClass, new ArrayList<Problem>());
+						}
+						classes.get(instanceClass).add(problem);
+						break;
+					case "-out":
+						outPath = value;
+						break;
+					case "-configs":
+						configurations = Integer.parseInt(value);
+						break;
+					case "-budget":
+						budget = Long.parseLong(value);
+						break;
+					case "-seed":
+						seed = Long.parseLong(value);
+						break;
+					default:
+						System.err.println("Unknown argument " + args[i]);
+						return;
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid number: " + e.getMessage());
+			return;
+		}
+
+		if (classes.isEmpty()) {
+			System.err.println("Please provide at least one instance with -warehouse and -order");
+			return;
+		}
+
+		Tuner tuner = new Tuner(seed, budget, configurations);
+		Map<String, Parameters> profiles = new LinkedHashMap<>();
+		try {
+			// keep the profiles of other instance classes that are already in the file
+			profiles.putAll(Parameters.loadProfiles(outPath));
+		} catch (IOException | IllegalArgumentException e) {
+			// no profiles yet
+		}
+		try {
+			for (Map.Entry<String, List<Problem>> entry : classes.entrySet()) {
+				System.out.println("Tuning " + entry.getKey() + " (" + entry.getValue().size() + " instances)");
+				Parameters tuned = tuner.tune(entry.getValue());
+				System.out.println("  " + tuned);
+				profiles.put(entry.getKey(), tuned);
+			}
+			Parameters.saveProfiles(outPath, profiles);
+			System.out.println("Profiles written to " + outPath);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		} finally {
+			tuner.shutdown();
+		}
+	}
+
+	public Tuner(long seed, long budget, int configurationCount) {
+		this.rand = new Random(seed);
+		this.budget = budget;
+		this.configurationCount = configurationCount;
+	}
+
+	public void shutdown() {
+		pool.shutdownNow();
+		watchdog.shutdownNow();
+	}
+
+	public Parameters tune(List<Problem> instances) {
+		// the algorithms are tuned one after the other, each race varies only its own parameters
+		Parameters annealing = race(Algorithm.SIMULATED_ANNEALING, instances);
+		Parameters beam = race(Algorithm.STOCHASTIC_BEAM_SEARCH, instances);
+		Parameters restarts = race(Algorithm.ITERATED_LOCAL_SEARCH, instances);
+		return new Parameters(annealing.getInitialTemperature(), annealing.getTemperatureDecrease(),
+				annealing.getTemperatureStepDelay(), annealing.getLossScale(), beam.getBeamWidth(),
+				restarts.getRestartCount());
+	}
+
+	private Parameters race(Algorithm algorithm, List<Problem> instances) {
+		// the default configuration competes as well, a profile only differs from it if it was beaten
+		List<Parameters> candidates = new ArrayList<>();
+		candidates.add(Parameters.DEFAULT);
+		for (int i = 0; i < configurationCount; i++) {
+			candidates.add(randomParameters(algorithm));
+		}
+
+		// successive halving: evaluate, keep the best part, evaluate the rest with more trials
+		int trials = 1;
+		while (candidates.size() > 1) {
+			double[] ranks = averageRanks(evaluate(algorithm, candidates, instances, trials));
+			Integer[] order = new Integer[candidates.size()];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+				        return Double.compare(ranks[a], ranks[b]);
+				}
+			});
+
+			int survivors = (candidates.size() + ELIMINATION_RATE - 1) / ELIMINATION_RATE;
+			List<Parameters> next = new ArrayList<>();
+			for (int i = 0; i < survivors; i++) {
+				next.add(candidates.get(order[i]));
+			}
+			System.out.println(String.format(Locale.ROOT, "  %s: %d configurations, %d trials, best average rank %.2f",
+					algorithm, candidates.size(), trials, ranks[order[0]]));
+			candidates = next;
+			trials *= ELIMINATION_RATE;
+		}
+		return candidates.get(0);
+	}
+
+	private double[][] evaluate(Algorithm algorithm, List<Parameters> candidates, List<Problem> instances, int trials) {
+		// submit every trial of every configuration on every instance to the pool
+		List<List<Future<Long>>> futures = new ArrayList<>();
+		for (Parameters candidate : candidates) {
+			List<Future<Long>> candidateFutures = new ArrayList<>();
+			for (Problem instance : instances) {
+				for (int t = 0; t < trials; t++) {
+					candidateFutures.add(pool.submit(new Callable<Long>() {
+						public Long call() {
+						        return trial(algorithm, candidate, instance);
+						}
+					}));
+				}
+			}
+			futures.add(candidateFutures);
+		}
+
+		// average score of every configuration on every instance
+		double[][] scores = new double[candidates.size()][instances.size()];
+		try {
+			for (int c = 0; c < candidates.size(); c++) {
+				for (int i = 0; i < instances.size(); i++) {
+					for (int t = 0; t < trials; t++) {
+						scores[c][i] += futures.get(c).get(i * trials + t).get() / (double) trials;
+					}
+				}
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("Tuning trial failed", e);
+		}
+		return scores;
+	}
+
+	private long trial(Algorithm algorithm, Parameters parameters, Problem problem) {
+		// interrupt runs that take far longer than the budget, the optimizers return their current state
+		Thread worker = Thread.currentThread();
+		ScheduledFuture<?> alarm = watchdog.schedule(new Runnable() {
+			public void run() {
+			        worker.interrupt();
+			}
+		}, budget * MAX_OVERRUN, TimeUnit.MILLISECONDS);
+
+		// run the optimizer until the CPU time budget of this thread is used up
+		long end = cpuTime() + TimeUnit.MILLISECONDS.toNanos(budget);
+		long best = Long.MIN_VALUE;
+		do {
+			boolean[] result = run(algorithm, parameters, problem);
+			if (result != null) {
+				best = Math.max(best, Loss.score(problem, result));
+			}
+		} while (cpuTime() < end && !Thread.currentThread().isInterrupted());
+
+		if (!alarm.cancel(false)) {
+			// the alarm already fired -> wait until it is done so its interrupt can be cleared
+			Thread.interrupted();
+			try {
+				alarm.get();
+			} catch (InterruptedException | ExecutionException ignored) {
+				// the interrupt is cleared below
+			}
+		}
+		// clear the interrupt of the watchdog so the next trial of this worker is not affected
+		Thread.interrupted();
+		return best;
+	}
+
+	private static boolean[] run(Algorithm algorithm, Parameters parameters, Problem problem) {
+		switch (algorithm) {
+			case SIMULATED_ANNEALING:
+				return Optimizers.simulatedAnnealing(problem, parameters);
+			case STOCHASTIC_BEAM_SEARCH:
+				return Optimizers.stochasticBeamSearch(problem, parameters.getBeamWidth());
+			default:
+				return Optimizers.iteratedLocalSearch(problem, parameters);
+		}
+	}
+
+	private static double[] averageRanks(double[][] scores) {
+		int candidates = scores.length;
+		int instances = scores[0].length;
+		double[] ranks = new double[candidates];
+
+		// on every instance the best configuration gets rank 0, ties share their average rank
+		for (int i = 0; i < instances; i++) {
+			for (int c = 0; c < candidates; c++) {
+				int better = 0;
+				int equal = 0;
+				for (int other = 0; other < candidates; other++) {
+					if (scores[other][i] > scores[c][i]) {
+						better++;
+					} else if (other != c && scores[other][i] == scores[c][i]) {
+						equal++;
+					}
+				}
+				ranks[c] += (better + equal / 2.0) / instances;
+			}
+		}
+		return ranks;
+	}
+
+	private Parameters randomParameters(Algorithm algorithm) {
+		// only the parameters of the tuned algorithm are drawn, the others keep their default
+		Parameters d = Parameters.DEFAULT;
+		switch (algorithm) {
+			case SIMULATED_ANNEALING:
+				return new Parameters(logUniform(250, 25000), logUniform(0.03, 3), (int) Math.round(logUniform(1, 20)),
+						logUniform(1e5, 1e9), d.getBeamWidth(), d.getRestartCount());
+			case STOCHASTIC_BEAM_SEARCH:
+				return new Parameters(d.getInitialTemperature(), d.getTemperatureDecrease(), d.getTemperatureStepDelay(),
+						d.getLossScale(), (int) Math.round(logUniform(2, 64)), d.getRestartCount());
+			default:
+				return new Parameters(d.getInitialTemperature(), d.getTemperatureDecrease(), d.getTemperatureStepDelay(),
+						d.getLossScale(), d.getBeamWidth(), (int) Math.round(logUniform(20, 1000)));
+		}
+	}
+
+	private double logUniform(double min, double max) {
+		// parameters spanning orders of magnitude are drawn uniformly on a logarithmic scale
+		return min * Math.exp(rand.nextDouble() * Math.log(max / min));
+	}
+
+	private static long cpuTime() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean.isCurrentThreadCpuTimeSupported()) {
+			// CPU time is not affected by other trials running at the same time
+			return bean.getCurrentThreadCpuTime();
+		}
+		return System.nanoTime();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,2 @@
+@call mvn -q -Pjmh package
+@java -jar target\benchmarks.jar %*
\ No newline at end of file
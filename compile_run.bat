@@ -1,3 +1,3 @@
-@dir /b /a:-d /s | findstr /r /e /c:"\.java" > .javafiles
+@dir /b /a:-d /s | findstr /r /e /c:"\.java" | findstr /v /c:"\jmh\" > .javafiles
 @javac @.javafiles -Xlint:unchecked
 @java display.Window
\ No newline at end of file
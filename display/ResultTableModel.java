@@ -0,0 +1,62 @@
+package display;
+
+import javax.swing.table.AbstractTableModel;
+
+import frame.PSU;
+
+/*
+ *	The ResultTableModel class provides the PSUs selected by an optimizer to the result table of the
+ *	Window class. The model only stores the selected PSUs, the item list of a PSU is built when the
+ *	table renders its row for the first time and cached afterwards. Since a table only renders the
+ *	rows that are visible, showing a result takes the same time no matter how many PSUs it uses.
+ *	The model must only be modified on the event dispatch thread.
+ */
+
+public class ResultTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String[] COLUMN_NAMES = {"PSU identifier", "Items"};
+
+	// identifiers and PSUs of the current result
+	private int[] identifiers = new int[0];
+	private PSU[] psus = new PSU[0];
+	// item lists that were already rendered, null if not rendered yet
+	private String[] itemLists = new String[0];
+
+	public void setResult(int[] identifiers, PSU[] psus) {
+		// replace the whole result with a single table update
+		this.identifiers = identifiers;
+		this.psus = psus;
+		this.itemLists = new String[psus.length];
+		fireTableDataChanged();
+	}
+
+	public int getRowCount() {
+		return identifiers.length;
+	}
+
+	public int getColumnCount() {
+		return COLUMN_NAMES.length;
+	}
+
+	public String getColumnName(int column) {
+		return COLUMN_NAMES[column];
+	}
+
+	public Class<?> getColumnClass(int column) {
+		return column == 0 ? Integer.class : String.class;
+	}
+
+	public Object getValueAt(int row, int column) {
+		if (column == 0) {
+			return identifiers[row];
+		}
+		// build the item list of this row when it is shown for the first time
+		if (itemLists[row] == null) {
+			itemLists[row] = psus[row].itemsToString();
+		}
+		return itemLists[row];
+	}
+
+}
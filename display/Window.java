@@ -1,13 +1,27 @@
 package display;
 
+import frame.PSU;
 import frame.Warehouse;
 
+import optimization.Coverage;
 import optimization.Loss;
 import optimization.Optimizers;
+import optimization.Portfolio;
+import optimization.Problem;
+import optimization.Solver;
+import optimization.Decomposition;
+import optimization.Parameters;
+import optimization.ParetoFront;
+import optimization.Wave;
 
 import util.State;
 
+import monitoring.Metrics;
+import monitoring.Metrics.Phase;
+import monitoring.Trace;
+
 import java.io.File;
+import java.io.IOException;
 
 import javax.swing.JFrame;
 import javax.swing.SpringLayout;
@@ -15,10 +29,13 @@ import javax.swing.JLabel;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.JScrollPane;
+import javax.swing.JTable;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
 import javax.swing.text.StyledDocument;
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
@@ -35,6 +52,10 @@ import java.lang.Runnable;
 
 import java.text.DecimalFormat;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /*
  *	The window class contains code for constructing the graphical user interface
  *	using a SpringLayout as the layout manager. This allows to set constraints between
@@ -44,7 +65,10 @@ import java.text.DecimalFormat;
  *	Furthermore action listeners are attached to all the buttons so that user interaction
  *	is handled appropriately.
  *	The class also takes care of printing messages to the output pane in different colors
- *	and starts the optimizers, as well as analyzing the optimizer's result.
+ *	and starts the optimizers, as well as analyzing the optimizer's result. The optimizer runs
+ *	in its own thread, so everything it prints is collected and added to the output pane in a
+ *	single update on the event dispatch thread. The selected PSUs are shown in a result table
+ *	which only renders the visible rows (see ResultTableModel).
  *	Additionally the main method is also contained in the Window class which just
  *	instantiates a new window object.
  */
@@ -66,6 +90,10 @@ public class Window {
 
 	private static final int WAREHOUSE = 0;
 	private static final int ORDER = 1;
+	private static final int COSTS = 2;
+
+	// coverage steps in percent for which the fewest PSUs of the trade-off are shown
+	private static final int PARTIAL_SHIPMENT_STEP = 10;
 
 	private static DecimalFormat decimalFormat = new DecimalFormat("#.###");
 
@@ -74,12 +102,17 @@ public class Window {
 		"Hill climbing",
 		"First choice hill climbing",
 		"Local beam search",
+		"Stochastic local beam search",
 		"Parallel hill climbing",
-		"Simulated annealing"
+		"Simulated annealing",
+		"Iterated local search",
+		"Portfolio (all optimizers racing)"
 	};
 
 	// indices of the optimizers in the optimizerNames array that require an extra state parameter
-	private static final int[] stateCountRequiredIndices = {2, 3};
+	private static final int[] stateCountRequiredIndices = {2, 3, 4, 7};
+	// indices of the optimizers that use the tuned beam width (see Parameters) if no state count is given
+	private static final int[] stateCountOptionalIndices = {2, 3};
 
 	// ------------- LAYOUT COMPONENTS ------------- \\
 	private JFrame frame;
@@ -88,10 +121,29 @@ public class Window {
 	private JTextField orderFileTxt;
 	private JComboBox<String> optimizerBox;
 	private JTextField stateCountTxt;
+	private JCheckBox decomposeBox;
+	private JCheckBox paretoBox;
 	private JTextPane outputPane;
+	private ResultTableModel resultModel;
 	private JButton startBtn;
 	private JButton openWarehouseBtn;
 	private JButton openOrderBtn;
+	private JTextField costFileTxt;
+	private JButton openCostBtn;
+	private JButton exportTraceBtn;
+
+	// paths of the selected order files, more than one form a wave
+	private String[] orderFiles;
+
+	// convergence trace of the last run
+	private Trace trace;
+
+	// text printed since the last update of the output pane and the color of every segment
+	private final List<String> pendingText = new ArrayList<>();
+	private final List<Color> pendingColors = new ArrayList<>();
+
+	// metrics at the end of the last run, the summary of a run includes parsing files before it
+	private Metrics.Snapshot metricsSnapshot = Metrics.snapshot();
 
 	public static void main(String[] args) {
 		// create a window object which handles user interaction
@@ -145,6 +197,25 @@ public class Window {
 		contentPane.add(orderFileTxt);
 		contentPane.add(openOrderBtn);
 
+		// ----------------------- COST FILE SECTION -----------------------
+
+		JLabel costFileLbl = new JLabel("PSU cost file (optional)");
+
+		costFileTxt = new JTextField();
+		costFileTxt.setEditable(false);
+
+		openCostBtn = new JButton("Open");
+		openCostBtn.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+			        openFile(COSTS);
+			}
+		});
+
+		// add components to the layout
+		contentPane.add(costFileLbl);
+		contentPane.add(costFileTxt);
+		contentPane.add(openCostBtn);
+
 		// ----------------------- OPTIMIZER SECTION -----------------------
 
 		JLabel optimizerLbl = new JLabel("Optimization algorithm");
@@ -170,6 +241,20 @@ public class Window {
 		contentPane.add(stateCountLbl);
 		contentPane.add(stateCountTxt);
 
+		// ----------------------- DECOMPOSITION SECTION -----------------------
+
+		decomposeBox = new JCheckBox("Solve independent item groups separately");
+
+		// add the component to the layout
+		contentPane.add(decomposeBox);
+
+		// ----------------------- PARETO FRONT SECTION -----------------------
+
+		paretoBox = new JCheckBox("Show coverage/PSU trade-off");
+
+		// add the component to the layout
+		contentPane.add(paretoBox);
+
 		// ----------------------- START SECTION -----------------------
 
 		startBtn = new JButton("Start");
@@ -182,18 +267,45 @@ public class Window {
 		// add the component to the layout
 		contentPane.add(startBtn);
 
+		// ----------------------- TRACE SECTION -----------------------
+
+		exportTraceBtn = new JButton("Export trace");
+		// there is no trace before the first run
+		exportTraceBtn.setEnabled(false);
+		exportTraceBtn.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+			        exportTrace();
+			}
+		});
+
+		// add the component to the layout
+		contentPane.add(exportTraceBtn);
+
 		// ----------------------- OUTPUT SECTION -----------------------
 
 		outputPane = new JTextPane();
 		outputPane.setEditable(false);
 		outputPane.addStyle(COLOR_STYLE, null);
-		outputPane.setPreferredSize(new Dimension(600, 600));
 
 		JScrollPane scrollPane = new JScrollPane(outputPane);
+		scrollPane.setPreferredSize(new Dimension(600, 350));
 
 		// add the component to the layout
 		contentPane.add(scrollPane);
 
+		// ----------------------- RESULT SECTION -----------------------
+
+		resultModel = new ResultTableModel();
+		JTable resultTable = new JTable(resultModel);
+		resultTable.getColumnModel().getColumn(0).setPreferredWidth(100);
+		resultTable.getColumnModel().getColumn(1).setPreferredWidth(500);
+
+		JScrollPane resultScrollPane = new JScrollPane(resultTable);
+		resultScrollPane.setPreferredSize(new Dimension(600, 250));
+
+		// add the component to the layout
+		contentPane.add(resultScrollPane);
+
 		// vvvvvvvvvvv ADDING ALL LAYOUT CONSTRAINTS vvvvvvvvvvv \\
 		// -------------------- WAREHOUSE FILE SECTION CONSTRAINTS -------------------- \\
 
@@ -221,10 +333,23 @@ public class Window {
 		layout.putConstraint(WEST, openOrderBtn, SPACING, EAST, orderFileTxt);
 		layout.putConstraint(SpringLayout.VERTICAL_CENTER, openOrderBtn, 0, SpringLayout.VERTICAL_CENTER, orderFileTxt);
 
+		// -------------------- COST FILE SECTION CONSTRAINTS -------------------- \\
+
+		layout.putConstraint(WEST, costFileLbl, 0, WEST, warehouseFileLbl);
+		layout.putConstraint(NORTH, costFileLbl, SPACING, SOUTH, orderFileTxt);
+		layout.putConstraint(EAST, costFileLbl, 0, EAST, openWarehouseBtn);
+
+		layout.putConstraint(NORTH, costFileTxt, SPACING, SOUTH, costFileLbl);
+		layout.putConstraint(WEST, costFileTxt, 0, WEST, costFileLbl);
+		layout.putConstraint(EAST, costFileTxt, 0, EAST, warehouseFileTxt);
+
+		layout.putConstraint(WEST, openCostBtn, SPACING, EAST, costFileTxt);
+		layout.putConstraint(SpringLayout.VERTICAL_CENTER, openCostBtn, 0, SpringLayout.VERTICAL_CENTER, costFileTxt);
+
 		// -------------------- OPTIMIZER SECTION CONSTRAINTS -------------------- \\
 
 		layout.putConstraint(WEST, optimizerLbl, 0, WEST, warehouseFileLbl);
-		layout.putConstraint(NORTH, optimizerLbl, SPACING, SOUTH, orderFileTxt);
+		layout.putConstraint(NORTH, optimizerLbl, SPACING, SOUTH, costFileTxt);
 		layout.putConstraint(EAST, optimizerLbl, 0, EAST, openWarehouseBtn);
 
 		layout.putConstraint(NORTH, optimizerBox, SPACING, SOUTH, optimizerLbl);
@@ -241,21 +366,45 @@ public class Window {
 		layout.putConstraint(NORTH, stateCountTxt, SPACING, SOUTH, stateCountLbl);
 		layout.putConstraint(EAST, stateCountTxt, 0, EAST, openWarehouseBtn);
 
+		// -------------------- DECOMPOSITION SECTION CONSTRAINTS -------------------- \\
+
+		layout.putConstraint(WEST, decomposeBox, 0, WEST, warehouseFileLbl);
+		layout.putConstraint(NORTH, decomposeBox, SPACING, SOUTH, stateCountTxt);
+		layout.putConstraint(EAST, decomposeBox, 0, EAST, openWarehouseBtn);
+
+		// -------------------- PARETO FRONT SECTION CONSTRAINTS -------------------- \\
+
+		layout.putConstraint(WEST, paretoBox, 0, WEST, warehouseFileLbl);
+		layout.putConstraint(NORTH, paretoBox, SPACING, SOUTH, decomposeBox);
+		layout.putConstraint(EAST, paretoBox, 0, EAST, openWarehouseBtn);
+
 		// -------------------- START SECTION CONSTRAINTS -------------------- \\
 
-		layout.putConstraint(NORTH, startBtn, SPACING, SOUTH, stateCountTxt);
+		layout.putConstraint(NORTH, startBtn, SPACING, SOUTH, paretoBox);
 		layout.putConstraint(WEST, startBtn, 0, WEST, optimizerLbl);
 		layout.putConstraint(EAST, startBtn, 0, EAST, openWarehouseBtn);
 
+		// -------------------- TRACE SECTION CONSTRAINTS -------------------- \\
+
+		layout.putConstraint(NORTH, exportTraceBtn, SPACING, SOUTH, startBtn);
+		layout.putConstraint(WEST, exportTraceBtn, 0, WEST, optimizerLbl);
+		layout.putConstraint(EAST, exportTraceBtn, 0, EAST, openWarehouseBtn);
+
 		// -------------------- OUTPUT SECTION CONSTRAINTS -------------------- \\
 
 		layout.putConstraint(NORTH, scrollPane, 0, NORTH, warehouseFileLbl);
 		layout.putConstraint(WEST, scrollPane, SPACING * 2, EAST, openWarehouseBtn);
 
+		// -------------------- RESULT SECTION CONSTRAINTS -------------------- \\
+
+		layout.putConstraint(NORTH, resultScrollPane, SPACING, SOUTH, scrollPane);
+		layout.putConstraint(WEST, resultScrollPane, 0, WEST, scrollPane);
+		layout.putConstraint(EAST, resultScrollPane, 0, EAST, scrollPane);
+
 		// -------------------- CONTENT PANE CONSTRAINTS -------------------- \\
 
 		layout.putConstraint(EAST, contentPane, SPACING, EAST, scrollPane);
-		layout.putConstraint(SOUTH, contentPane, SPACING, SOUTH, scrollPane);
+		layout.putConstraint(SOUTH, contentPane, SPACING, SOUTH, resultScrollPane);
 		// _____________________ END OF LAYOUT CONSTRAINTS _____________________ \\
 
 		// choose if the state count text field should be enabled
@@ -275,6 +424,9 @@ public class Window {
 		chooser.setAcceptAllFileFilterUsed(false);
 		chooser.setFileFilter(new FileNameExtensionFilter("Text files", "txt"));
 
+		// several order files can be selected to plan them as one wave
+		chooser.setMultiSelectionEnabled(type == ORDER);
+
 		// show file chooser and check response
 		if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
 			String filePath = chooser.getSelectedFile().getAbsolutePath();
@@ -282,6 +434,8 @@ public class Window {
 			// proceed depending on the type of file that should be opened
 			switch (type) {
 				case WAREHOUSE:
+					// the costs of the previous warehouse do not apply to the new one
+					costFileTxt.setText("");
 					if (Warehouse.readWarehouseFile(filePath)) {
 						// a warehouse file was parsed without errors
 						warehouseFileTxt.setText(filePath);
@@ -293,26 +447,67 @@ public class Window {
 					break;
 
 				case ORDER:
-					if (Warehouse.readOrderFile(filePath)) {
-						// an order file was parsed without errors
-						orderFileTxt.setText(filePath);
+					File[] files = chooser.getSelectedFiles();
+					orderFiles = new String[files.length];
+					for (int i = 0; i < files.length; i++) {
+						orderFiles[i] = files[i].getAbsolutePath();
+					}
+					if (Warehouse.readOrderFiles(orderFiles)) {
+						// the order files were parsed without errors
+						orderFileTxt.setText(String.join("; ", orderFiles));
 					} else {
 						// an error occured while parsing an order file
 						parsingError(type);
 						orderFileTxt.setText("");
 					}
 					break;
+
+				case COSTS:
+					if (Warehouse.readCostFile(filePath)) {
+						// the PSU costs were parsed without errors
+						costFileTxt.setText(filePath);
+					} else {
+						// an error occured while parsing the cost file, every PSU costs one unit
+						parsingError(type);
+						costFileTxt.setText("");
+					}
+					break;
+			}
+		}
+	}
+
+	private void exportTrace() {
+		// open a file chooser to select where the trace of the last run is saved
+		JFileChooser chooser = new JFileChooser();
+		chooser.setCurrentDirectory(new File("."));
+		chooser.addChoosableFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+		chooser.addChoosableFileFilter(new FileNameExtensionFilter("JSON files", "json"));
+
+		if (chooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+			String filePath = chooser.getSelectedFile().getAbsolutePath();
+			// the format is chosen by the file extension, CSV if there is no known extension
+			if (!filePath.toLowerCase().endsWith(".json") && !filePath.toLowerCase().endsWith(".csv")) {
+				filePath += chooser.getFileFilter().getDescription().startsWith("JSON") ? ".json" : ".csv";
+			}
+
+			try {
+				trace.export(filePath);
+				println("Trace exported to " + filePath);
+			} catch (IOException e) {
+				println("ERROR: The trace could not be exported (" + e.getMessage() + ")", Color.red);
 			}
 		}
 	}
 
 	private void parsingError(int fileType) {
 		// get the type of selected file as a string
-		String fileName = fileType == WAREHOUSE ? "warehouse" : "order";
+		String fileName = fileType == WAREHOUSE ? "warehouse" : fileType == ORDER ? "order" : "cost";
 		// print an error message to the output pane depending on the file type
 		print("ERROR: The selected " + fileName + " file could not be parsed", Color.red);
 		if (fileType == ORDER) {
 			print(" (a warehouse file must be selected before selecting the order file)", Color.red);
+		} else if (fileType == COSTS) {
+			print(" (a warehouse file must be selected first and every PSU needs one non-negative cost)", Color.red);
 		}
 		print("\n");
 	}
@@ -338,16 +533,43 @@ public class Window {
 	}
 
 	private void print(String str, Color col) {
+		// collect the text, it is added to the output pane on the event dispatch thread
+		synchronized (pendingText) {
+			pendingText.add(str);
+			pendingColors.add(col);
+			if (pendingText.size() > 1) {
+				// an update of the output pane is already scheduled and will include this text
+				return;
+			}
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+			        flushOutput();
+			}
+		});
+	}
+
+	private void flushOutput() {
+		// take all text printed since the last update
+		String[] texts;
+		Color[] colors;
+		synchronized (pendingText) {
+			texts = pendingText.toArray(new String[pendingText.size()]);
+			colors = pendingColors.toArray(new Color[pendingColors.size()]);
+			pendingText.clear();
+			pendingColors.clear();
+		}
+
 		// prepare for printing onto the output pane
 		StyledDocument doc = outputPane.getStyledDocument();
 		Style style = outputPane.getStyle(COLOR_STYLE);
 
-		// set the selected color
-		StyleConstants.setForeground(style, col);
-
 		try {
-			// add the passed string to the end of the output pane
-			doc.insertString(doc.getLength(), str, style);
+			for (int i = 0; i < texts.length; i++) {
+				// set the selected color and add the string to the end of the output pane
+				StyleConstants.setForeground(style, colors[i]);
+				doc.insertString(doc.getLength(), texts[i], style);
+			}
 			// scroll to the end of the output pane by selecting an empty string at the end of the pane
 			outputPane.select(doc.getLength(), doc.getLength());
 		} catch (BadLocationException e) {
@@ -355,6 +577,37 @@ public class Window {
 		}
 	}
 
+	private void setControlsEnabled(final boolean enabled) {
+		// (de)activate user interaction of controls that can influence the optimizer
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+			        startBtn.setEnabled(enabled);
+			        openWarehouseBtn.setEnabled(enabled);
+			        openOrderBtn.setEnabled(enabled);
+			        openCostBtn.setEnabled(enabled);
+			        exportTraceBtn.setEnabled(enabled);
+			}
+		});
+	}
+
+	private void showResult(boolean[] optimized) {
+		// collect the selected PSUs, their items are only rendered when their rows become visible
+		final int[] identifiers = new int[Loss.numPSUsUsed(optimized)];
+		final PSU[] psus = new PSU[identifiers.length];
+		int row = 0;
+		for (int i = 0; i < optimized.length; i++) {
+			if (optimized[i]) {
+				identifiers[row] = i;
+				psus[row++] = Warehouse.getPSU(i);
+			}
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+			        resultModel.setResult(identifiers, psus);
+			}
+		});
+	}
+
 	private boolean optimizerNeedsStateCount() {
 		String selected = (String) optimizerBox.getSelectedItem();
 		// go through the indices of optimizers which require an additional state parameter
@@ -368,6 +621,17 @@ public class Window {
 		return false;
 	}
 
+	private boolean stateCountOptional() {
+		String selected = (String) optimizerBox.getSelectedItem();
+		// check if the selected optimizer can fall back to a tuned state count
+		for (int i = 0; i < stateCountOptionalIndices.length; i++) {
+			if (selected.equals(optimizerNames[stateCountOptionalIndices[i]])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void startOptimizer() {
 		// insert a new line to separate the optimizer's information from previous Text
 		// if the output pane is not empty
@@ -387,9 +651,9 @@ public class Window {
 
 	private void optimize() {
 		// disable user interaction of controls that can influence the optimizer
-		startBtn.setEnabled(false);
-		openWarehouseBtn.setEnabled(false);
-		openOrderBtn.setEnabled(false);
+		setControlsEnabled(false);
+		// remove the result of the previous run from the result table
+		showResult(new boolean[0]);
 
 		// get the name of the selected optimizer
 		String selected = (String) optimizerBox.getSelectedItem();
@@ -408,29 +672,56 @@ public class Window {
 		// save the start time before running the optimizer
 		long startTime = System.nanoTime();
 
-		boolean[] optimized = null;
-		// run the selected optimizer
-		if (selected.equals(optimizerNames[0])) {
-			// hill climbing
-			optimized = Optimizers.hillClimbing(Warehouse.psuCount());
-		} else if (selected.equals(optimizerNames[1])) {
-			// first choice hill climbing
-			optimized = Optimizers.firstChoiceHillClimbing(Warehouse.psuCount());
-		} else if (selected.equals(optimizerNames[2])) {
-			// local beam search
-			optimized = Optimizers.localBeamSearch(Warehouse.psuCount(), stateCount);
-		} else if (selected.equals(optimizerNames[3])) {
-			// parallel hill climbing
-			optimized = Optimizers.parallelHillClimbing(Warehouse.psuCount(), stateCount);
-		} else if (selected.equals(optimizerNames[4])) {
-			// simulated annealing
-			optimized = Optimizers.simulatedAnnealing(Warehouse.psuCount());
+		Problem problem;
+		try {
+			problem = Warehouse.problem();
+		} catch (IllegalArgumentException e) {
+			// the PSU costs are too large for the exact score of this order
+			println("ERROR: " + e.getMessage(), Color.red);
+			setControlsEnabled(true);
+			return;
+		}
+		if (stateCount == -1 && optimizerNeedsStateCount()) {
+			// no state count given -> use the beam width tuned for this kind of problem
+			stateCount = Parameters.forProblem(problem).getBeamWidth();
+			println("Tuned beam width: " + stateCount);
+		}
+		Solver solver = solver(selected, stateCount);
+
+		// record the convergence of this run so it can be exported afterwards
+		trace = new Trace();
+		trace.setMetadata("algorithm", selected);
+		trace.setMetadata("warehouse", warehouseFileTxt.getText());
+		trace.setMetadata("order", orderFileTxt.getText());
+		trace.setMetadata("costs", costFileTxt.getText());
+		trace.setMetadata("psu_count", problem.psuCount());
+		trace.setMetadata("order_size", problem.orderSize());
+		trace.setMetadata("state_count", stateCount);
+		trace.setMetadata("decomposition", decomposeBox.isSelected());
+		// the runs of the optimizer draw their seeds from the seed of this run, so it reproduces them
+		long seed = State.nextSeed();
+		trace.setMetadata("seed", seed);
+		State.setThreadSeed(seed);
+		Trace.start(trace);
+
+		long searchStartTime = Phase.SEARCH.start();
+		boolean[] optimized;
+		if (decomposeBox.isSelected()) {
+			// run the selected optimizer on every group of items with disjoint PSUs in parallel
+			optimized = Decomposition.solve(problem, solver);
+		} else {
+			// run the selected optimizer on the whole order
+			optimized = solver.solve(problem);
+		}
+		Phase.SEARCH.stop(searchStartTime);
+		Trace.stop();
+		State.clearThreadSeed();
+		if (optimized != null) {
+			trace.setMetadata("final_score", Loss.score(problem, optimized));
 		}
 
 		// enable all previously disabled controls
-		startBtn.setEnabled(true);
-		openWarehouseBtn.setEnabled(true);
-		openOrderBtn.setEnabled(true);
+		setControlsEnabled(true);
 
 		// check if the optimizer finished without failing
 		if (optimized != null) {
@@ -443,6 +734,12 @@ public class Window {
 			print("\nNumber of used PSUs: ");
 			println(Integer.toString(Loss.numPSUsUsed(optimized)), GREEN);
 
+			if (Warehouse.hasCosts()) {
+				// output the total cost of the used PSUs
+				print("Total PSU cost: ");
+				println(Long.toString(new Coverage(problem, optimized.clone()).cost()), GREEN);
+			}
+
 			// output how many items the PSUs carried and how many of them are individuals
 			print("Number of carried items: ");
 			print(Integer.toString(Warehouse.numItemsCarried(optimized)), GREEN);
@@ -454,23 +751,108 @@ public class Window {
 			print("Loss: ");
 			println(decimalFormat.format(Loss.loss(optimized)), GREEN);
 
-			print("\n");
+			if (Warehouse.orderCount() > 1) {
+				printWave(optimized);
+			}
 
-			// output all PSU identifiers followed by the items carried by this PSU
-			for (int i = 0; i < optimized.length; i++) {
-				if (optimized[i]) {
-					print("PSU identifier: ");
-					println(Integer.toString(i), Color.blue);
-					print("Items: ");
-					println(Warehouse.getPSU(i).itemsToString(), Color.gray);
-				}
+			if (paretoBox.isSelected()) {
+				printParetoFront(problem, optimized);
 			}
+
+			// output the metrics recorded since the last run
+			print("\n");
+			print(Metrics.summary(metricsSnapshot), Color.gray);
+			metricsSnapshot = Metrics.snapshot();
+
+			// show all PSU identifiers and the items carried by these PSUs in the result table
+			showResult(optimized);
 		} else {
 			// an error occured while optimizing
 			println("ERROR: Optimizer returned null", Color.red);
 		}
 	}
 
+	private void printParetoFront(Problem problem, boolean[] optimized) {
+		// sweep from the optimized selection to the fewest PSUs for every reachable coverage
+		print("\nCoverage/PSU trade-off");
+		println(" (fewest PSUs for a number of covered items)");
+		List<ParetoFront.Point> front = ParetoFront.sweep(problem, optimized);
+		for (ParetoFront.Point point : front) {
+			print(point.getPsusUsed() + " PSUs: ");
+			print(point.getItemsCovered() + "/" + problem.orderSize(), GREEN);
+			println(" items (" + decimalFormat.format(100.0 * point.getItemsCovered() / Math.max(problem.orderSize(), 1)) + "%)");
+		}
+
+		// fewest PSUs for partial shipments of the order
+		for (int percent = 100; percent >= PARTIAL_SHIPMENT_STEP; percent -= PARTIAL_SHIPMENT_STEP) {
+			ParetoFront.Point point = ParetoFront.fewestPSUs(front, percent / 100.0, problem.orderSize());
+			print(percent + "% of the order: ");
+			println(point == null ? "not reachable" : point.getPsusUsed() + " PSUs", point == null ? Color.red : Color.blue);
+		}
+	}
+
+	private void printWave(boolean[] optimized) {
+		// every PSU brought to the station serves all orders of the wave
+		print("\nWave of ");
+		print(Integer.toString(Warehouse.orderCount()), GREEN);
+		println(" orders");
+		int psusUsed = Loss.numPSUsUsed(optimized);
+		if (psusUsed > 0) {
+			print("Picks per PSU move: ");
+			println(decimalFormat.format((double) Warehouse.orderSize() / psusUsed), GREEN);
+		} else {
+			// no PSU is moved, so nothing can be picked
+			println("Picks per PSU move: none (no PSU used)");
+		}
+
+		// output which of the selected PSUs every order picks from
+		for (int i = 0; i < Warehouse.orderCount(); i++) {
+			int[] assigned = Wave.assign(Warehouse.orderProblem(i), optimized);
+			StringBuilder psus = new StringBuilder();
+			for (int j = 0; j < assigned.length; j++) {
+				psus.append(j == 0 ? "" : ", ").append(assigned[j]);
+			}
+			print("Order " + new File(orderFiles[i]).getName() + ": ");
+			println(psus.toString(), Color.blue);
+		}
+	}
+
+	private Solver solver(String selected, int stateCount) {
+		// the portfolio races of all components of a decomposition end at the same time
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Portfolio.DEFAULT_TIME_BUDGET);
+		// return a solver which runs the selected optimizer on a given problem
+		return new Solver() {
+			public boolean[] solve(Problem problem) {
+				if (selected.equals(optimizerNames[0])) {
+					// hill climbing
+					return Optimizers.hillClimbing(problem);
+				} else if (selected.equals(optimizerNames[1])) {
+					// first choice hill climbing
+					return Optimizers.firstChoiceHillClimbing(problem);
+				} else if (selected.equals(optimizerNames[2])) {
+					// local beam search
+					return Optimizers.localBeamSearch(problem, stateCount);
+				} else if (selected.equals(optimizerNames[3])) {
+					// stochastic local beam search
+					return Optimizers.stochasticBeamSearch(problem, stateCount);
+				} else if (selected.equals(optimizerNames[4])) {
+					// parallel hill climbing
+					return Optimizers.parallelHillClimbing(problem, stateCount);
+				} else if (selected.equals(optimizerNames[5])) {
+					// simulated annealing
+					return Optimizers.simulatedAnnealing(problem);
+				} else if (selected.equals(optimizerNames[6])) {
+					// iterated local search
+					return Optimizers.iteratedLocalSearch(problem);
+				} else if (selected.equals(optimizerNames[7])) {
+					// portfolio of all optimizers racing under one time budget
+					return Portfolio.optimizeUntil(problem, stateCount, deadline);
+				}
+				return null;
+			}
+		};
+	}
+
 	private boolean checkInputFields() {
 		if (warehouseFileTxt.getText().isEmpty()) {
 			// no warehouse file selected
@@ -480,12 +862,13 @@ public class Window {
 			// no order file selected
 			println("Please select an order file", Color.red);
 			return false;
-		} else if (optimizerNeedsStateCount() && stateCountTxt.getText().isEmpty()) {
+		} else if (optimizerNeedsStateCount() && stateCountTxt.getText().isEmpty() && !stateCountOptional()) {
 			// a state count is necessary but not provided
 			println("Please choose the state count for " + (String) optimizerBox.getSelectedItem(), Color.red);
 			return false;
-		} else if (optimizerNeedsStateCount() && !stateCountTxt.getText().matches("[1-9]\\d*")) {
-			// an invalid state count was selected
+		} else if (optimizerNeedsStateCount() && !stateCountTxt.getText().isEmpty()
+				&& !stateCountTxt.getText().matches("[1-9]\\d*")) {
+			// an invalid state count was selected, an empty field uses the tuned beam width
 			println("Please select an integer greater than 0", Color.red);
 			return false;
 		}
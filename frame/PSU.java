@@ -30,19 +30,16 @@ public class PSU {
 	}
 
 	public String itemsToString() {
-		String result = "";
-		// collect names of all items in a string separated by commas
+		StringBuilder result = new StringBuilder();
+		// collect names of all items in a string separated by commas, a separator is only
+		// added between two names so there is no unnecessary comma at the end
 		for (Integer index : items) {
-			result += reverseItemMapping.get(index) + ", ";
-		}
-
-		if (result.isEmpty()) {
-			// string is empty (this PSU has no items) -> no unnecessary comma at the end
-			return result;
-		} else {
-			// remove the last comma if the string is non-empty
-			return result.substring(0, result.length() - 2);
+			if (result.length() > 0) {
+				result.append(", ");
+			}
+			result.append(reverseItemMapping.get(index));
 		}
+		return result.toString();
 	}
 
 	public HashSet<Integer> getItems() {
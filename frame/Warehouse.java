@@ -2,11 +2,13 @@ package frame;
 
 import java.util.HashSet;
 
-import optimization.Optimizers;
-import optimization.Loss;
+import optimization.Problem;
+import optimization.Wave;
 
 import util.Parser;
 
+import monitoring.Metrics.Phase;
+
 /*
  *	The Warehouse class contains the current warehouse configuration with all the PSU information
  *	and the currently ordered items. It also allows to retrieve a set of all items that are
@@ -16,7 +18,9 @@ import util.Parser;
  *	contains only static attributes and operations because only a single set of PSUs and a single
  *	order can be active at one time and this also enables access to this data from every
  *	other class which is important because the PSU configuration and current order are essential
- *	information during the optimization.
+ *	information during the optimization. Several order files can be loaded as a wave, then the
+ *	current order is the combination of all orders of the wave (see the Wave class). Optionally
+ *	a cost can be loaded for every PSU, otherwise every PSU costs one unit.
  */
 
 public class Warehouse {
@@ -24,19 +28,61 @@ public class Warehouse {
 	// currently loaded PSUs and order
 	private static PSU[] psus;
 	private static int[] order;
+	// the orders of the current wave, the current order is their combination
+	private static int[][] orders;
+	// cost of every PSU, null if every PSU costs one unit
+	private static long[] costs;
+
+	// index based representation of the current PSUs and order used by the optimizers
+	private static Problem problem;
 
 	public static boolean readWarehouseFile(String path) {
 		// parse a new warehouse file
 		psus = Parser.parseWarehouse(path);
+		// the costs belong to the PSUs of the previous warehouse
+		costs = null;
+		problem = null;
 		return psus != null;
 	}
 
+	public static boolean readCostFile(String path) {
+		// parse the PSU costs, there must be exactly one cost for every PSU
+		long[] parsed = psus == null ? null : Parser.parseCosts(path);
+		costs = parsed != null && parsed.length == psus.length ? parsed : null;
+		problem = null;
+		return costs != null;
+	}
+
 	public static boolean readOrderFile(String path) {
-		// parse a new order file
-		order = Parser.parseOrder(path);
+		// a single order is a wave of one order
+		return readOrderFiles(new String[] {path});
+	}
+
+	public static boolean readOrderFiles(String[] paths) {
+		// parse all order files of a wave, fail if any of them can not be parsed
+		orders = new int[paths.length][];
+		for (int i = 0; i < paths.length; i++) {
+			orders[i] = Parser.parseOrder(paths[i]);
+			if (orders[i] == null) {
+				orders = null;
+				break;
+			}
+		}
+		order = orders == null ? null : Wave.combine(orders);
+		problem = null;
 		return order != null;
 	}
 
+	public static synchronized Problem problem() {
+		// build the problem of the current PSUs and order once and reuse it until a file is loaded
+		if (problem == null) {
+			long startTime = Phase.INDEX.start();
+			problem = withCosts(Problem.of(psus, order));
+			Phase.INDEX.stop(startTime);
+		}
+		return problem;
+	}
+
 	public static HashSet<Integer> maskedItems(boolean[] mask) {
 		HashSet<Integer> items = new HashSet<>();
 		// return all items that are being carried by the PSUs selected in the boolean mask
@@ -67,6 +113,24 @@ public class Warehouse {
 		return order;
 	}
 
+	public static int orderCount() {
+		// number of orders in the current wave
+		return orders.length;
+	}
+
+	public static Problem orderProblem(int index) {
+		// problem of a single order of the wave, e.g. to assign PSUs of the wave's solution to it
+		return withCosts(Problem.of(psus, orders[index]));
+	}
+
+	private static Problem withCosts(Problem problem) {
+		return costs == null ? problem : problem.withCosts(costs);
+	}
+
+	public static boolean hasCosts() {
+		return costs != null;
+	}
+
 	public static int orderSize() {
 		return order.length;
 	}
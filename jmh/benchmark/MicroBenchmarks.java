@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frame.PSU;
+import frame.Warehouse;
+
+import optimization.Coverage;
+import optimization.Loss;
+import optimization.Problem;
+
+import util.Parser;
+
+/*
+ *	The MicroBenchmarks class is the JMH version of the microbenchmarks of the Benchmark class. It
+ *	measures the score, batch score, neighbourhood score and loss evaluation, neighbour generation
+ *	and parsing on the second order of the problem files. Every benchmark runs in forked JVMs, so
+ *	the JIT profile of one benchmark does not influence the next one. The results of the methods
+ *	are returned to JMH which consumes them, so the JIT can not remove the work.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+@State(Scope.Thread)
+public class MicroBenchmarks {
+
+	private static final String WAREHOUSE_FILE = "problem_files/problem1.txt";
+	private static final String ORDER_FILE = "problem_files/order12.txt";
+
+	// number of states scored at once by the batch evaluation benchmark
+	private static final int BATCH_SIZE = 64;
+
+	// the states are created from a fixed seed so every fork measures the same states
+	private static final long SEED = 42;
+
+	private Problem problem;
+	private boolean[] state;
+	private Coverage coverage;
+	private long[] neighbourScores;
+	private boolean[][] batch;
+	private SplittableRandom rand;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Warehouse.readWarehouseFile(WAREHOUSE_FILE);
+		Warehouse.readOrderFile(ORDER_FILE);
+		problem = Warehouse.problem();
+		rand = new SplittableRandom(SEED);
+		state = util.State.randomState(problem.psuCount(), rand);
+		coverage = new Coverage(problem, state.clone());
+		neighbourScores = new long[problem.psuCount()];
+		batch = new boolean[BATCH_SIZE][];
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			batch[i] = util.State.randomState(problem.psuCount(), rand);
+		}
+	}
+
+	@Benchmark
+	public long lossScore() {
+		return Loss.score(problem, state);
+	}
+
+	@Benchmark
+	public long[] lossScores() {
+		// one operation scores the whole batch
+		return Loss.scores(problem, batch);
+	}
+
+	@Benchmark
+	public long lossDelta() {
+		long sum = 0;
+		for (int i = 0; i < problem.psuCount(); i++) {
+			sum += Loss.delta(coverage, i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long[] lossNeighbourScores() {
+		Loss.neighbourScores(problem, state, neighbourScores);
+		return neighbourScores;
+	}
+
+	@Benchmark
+	public float lossFloat() {
+		return Loss.loss(state);
+	}
+
+	@Benchmark
+	public boolean[][] generateNeighbourhood() {
+		return util.State.generateNeighbourhood(state);
+	}
+
+	@Benchmark
+	public boolean[] randomNeighbour() {
+		return util.State.randomNeighbour(state, rand);
+	}
+
+	@Benchmark
+	public PSU[] parseWarehouse() {
+		return Parser.parseWarehouse(WAREHOUSE_FILE);
+	}
+
+	@Benchmark
+	public int[] parseOrder() {
+		return Parser.parseOrder(ORDER_FILE);
+	}
+
+}
@@ -0,0 +1,136 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frame.Warehouse;
+
+import optimization.Loss;
+import optimization.Optimizers;
+import optimization.Portfolio;
+import optimization.Problem;
+
+import util.Generator;
+
+/*
+ *	The OptimizerBenchmarks class is the JMH version of the macrobenchmarks of the Benchmark class.
+ *	It measures the average time of a run of every optimizer on the orders of the problem files and
+ *	on a catalog created by the Generator class, selected with the instance parameter. Every
+ *	benchmark runs in its own forked JVM. The methods return the score of the solution, the
+ *	solution quality itself is still compared by the Benchmark class with -baseline.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OptimizerBenchmarks {
+
+	private static final String WAREHOUSE_FILE = "problem_files/problem1.txt";
+
+	// parameters of the optimizers requiring a state count and of the portfolio
+	private static final int STATE_COUNT = 8;
+	private static final long PORTFOLIO_BUDGET = 1000;
+
+	// seed and shape of the generated catalog
+	private static final long CATALOG_SEED = 42;
+	private static final int CATALOG_SIZE = 5000;
+	private static final int CATALOG_ITEMS_PER_PSU = 10;
+	private static final int CATALOG_ORDER_SIZE = 30;
+	private static final double CATALOG_ZIPF_EXPONENT = 0.8;
+
+	// an order of the problem files or the generated catalog
+	@Param({"order11", "order12", "catalog"})
+	public String instance;
+
+	private Problem problem;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		if (instance.equals("catalog")) {
+			// write the catalog into temporary files and read it like the problem files
+			File directory = File.createTempFile("catalog", "");
+			directory.delete();
+			directory.mkdir();
+			directory.deleteOnExit();
+			String prefix = directory.getPath() + File.separator + "catalog" + CATALOG_SIZE;
+
+			Generator generator = new Generator();
+			generator.setSeed(CATALOG_SEED);
+			generator.setPsuCount(CATALOG_SIZE);
+			generator.setItemCount(CATALOG_SIZE / 2);
+			generator.setItemsPerPsu(CATALOG_ITEMS_PER_PSU, CATALOG_ITEMS_PER_PSU);
+			generator.setZipfExponent(CATALOG_ZIPF_EXPONENT);
+			generator.setOrderSize(CATALOG_ORDER_SIZE);
+			generator.generate();
+			generator.write(prefix);
+			new File(prefix + "_warehouse.txt").deleteOnExit();
+			new File(prefix + "_order1.txt").deleteOnExit();
+
+			Warehouse.readWarehouseFile(prefix + "_warehouse.txt");
+			Warehouse.readOrderFile(prefix + "_order1.txt");
+		} else {
+			Warehouse.readWarehouseFile(WAREHOUSE_FILE);
+			Warehouse.readOrderFile("problem_files/" + instance + ".txt");
+		}
+		problem = Warehouse.problem();
+	}
+
+	@Benchmark
+	public long hillClimbing() {
+		return Loss.score(problem, Optimizers.hillClimbing(problem));
+	}
+
+	@Benchmark
+	public long firstChoiceHillClimbing() {
+		return Loss.score(problem, Optimizers.firstChoiceHillClimbing(problem));
+	}
+
+	@Benchmark
+	public long localBeamSearch() {
+		return Loss.score(problem, Optimizers.localBeamSearch(problem, STATE_COUNT));
+	}
+
+	@Benchmark
+	public long stochasticBeamSearch() {
+		return Loss.score(problem, Optimizers.stochasticBeamSearch(problem, STATE_COUNT));
+	}
+
+	@Benchmark
+	public long parallelHillClimbing() {
+		return Loss.score(problem, Optimizers.parallelHillClimbing(problem, STATE_COUNT));
+	}
+
+	@Benchmark
+	public long simulatedAnnealing() {
+		return Loss.score(problem, Optimizers.simulatedAnnealing(problem));
+	}
+
+	@Benchmark
+	public long iteratedLocalSearch() {
+		return Loss.score(problem, Optimizers.iteratedLocalSearch(problem));
+	}
+
+	@Benchmark
+	public long portfolio() {
+		return Loss.score(problem, Portfolio.optimize(problem, STATE_COUNT, PORTFOLIO_BUDGET));
+	}
+
+}
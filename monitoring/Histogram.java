@@ -0,0 +1,77 @@
+package monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/*
+ *	The Histogram class records the distribution of durations (or any other non-negative values)
+ *	with very little overhead. Values are sorted into buckets by the position of their highest bit,
+ *	so each bucket covers a power of two and recording a value is a single increment. All buckets,
+ *	the count and the sum are striped LongAdder counters which threads can increment concurrently
+ *	without contending for the same memory location. Percentiles are estimated from the buckets
+ *	and are accurate up to a factor of two.
+ */
+
+public class Histogram {
+
+	private static final int BUCKETS = 64;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public Histogram() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	public void record(long value) {
+		// bucket i contains the values in [2^(i-1), 2^i)
+		buckets[BUCKETS - Long.numberOfLeadingZeros(Math.max(value, 0))].increment();
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public long count() {
+		return count.sum();
+	}
+
+	public long sum() {
+		return sum.sum();
+	}
+
+	public long max() {
+		return max.get();
+	}
+
+	public long percentile(double percentile) {
+		long total = count();
+		if (total == 0) {
+			return 0;
+		}
+
+		// find the bucket containing the requested rank and return its upper limit
+		long rank = (long) Math.ceil(percentile / 100 * total);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets[i].sum();
+			if (seen >= rank) {
+				return i == 0 ? 0 : Math.min((1L << i) - 1, max());
+			}
+		}
+		return max();
+	}
+
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ *	The IncumbentEvent class is a Java Flight Recorder event which is emitted when an optimizer
+ *	finds a new best state (the incumbent). Together with the event timestamps this shows how
+ *	fast an optimizer converges. Incumbents can change thousands of times per second, so events
+ *	are sampled: at most one event is emitted per sample period, all others are dropped before
+ *	any work is done. The final state of a run is always contained in its OptimizerRunEvent.
+ */
+
+@Name("warehouse.Incumbent")
+@Label("New Incumbent")
+@Category({"Warehouse", "Optimization"})
+@Description("Sampled improvement of the best state of an optimizer")
+@StackTrace(false)
+public class IncumbentEvent extends Event {
+
+	// minimal time between two incumbent events in nanoseconds
+	private static final long SAMPLE_PERIOD = 1000000;
+
+	// earliest time the next event may be emitted (races between threads only affect sampling)
+	private static volatile long nextSample;
+
+	@Label("Algorithm")
+	private String algorithm;
+
+	@Label("Score")
+	@Description("Exact score of the new best state, larger is better")
+	private long score;
+
+	@Label("Iteration")
+	private long iteration;
+
+	public static void emit(String algorithm, long score, long iteration) {
+		IncumbentEvent event = new IncumbentEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		if (now - nextSample < 0) {
+			// an incumbent was emitted recently -> drop this one
+			return;
+		}
+		nextSample = now + SAMPLE_PERIOD;
+
+		event.algorithm = algorithm;
+		event.score = score;
+		event.iteration = iteration;
+		event.commit();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,225 @@
+package monitoring;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+import javax.management.JMException;
+
+/*
+ *	The Metrics class is a global registry of counters and phase timings of the optimization.
+ *	It counts loss evaluations, generated neighbours, accepted and rejected moves, iterations and
+ *	restarts of the optimizers and records how long parsing files, building the problem index and
+ *	searching take. Counters are striped LongAdder objects so concurrent optimizer threads do not
+ *	contend, and hot loops add their counts once per iteration instead of once per neighbour.
+ *	The metrics are exposed via JMX and a summary can be printed after each run. Metrics can be
+ *	switched off with -Dwarehouse.metrics=false, which turns every recording method into an empty
+ *	method that the JIT compiler removes entirely.
+ */
+
+public class Metrics {
+
+	// read once at startup so the JIT compiler can remove all recording code when disabled
+	public static final boolean ENABLED = !"false".equals(System.getProperty("warehouse.metrics"));
+
+	public enum Counter {
+		LOSS_EVALUATIONS("Loss evaluations"),
+		NEIGHBOURS_GENERATED("Neighbours generated"),
+		ACCEPTED_MOVES("Accepted moves"),
+		REJECTED_MOVES("Rejected moves"),
+		ITERATIONS("Iterations"),
+		RESTARTS("Restarts");
+
+		private final String name;
+		private final LongAdder adder = new LongAdder();
+
+		Counter(String name) {
+			this.name = name;
+		}
+
+		public void increment() {
+			if (ENABLED) {
+				adder.increment();
+			}
+		}
+
+		public void add(long value) {
+			if (ENABLED) {
+				adder.add(value);
+			}
+		}
+
+		public long get() {
+			return adder.sum();
+		}
+	}
+
+	public enum Phase {
+		PARSE("Parse"),
+		INDEX("Index"),
+		SEARCH("Search");
+
+		private final String name;
+		private final Histogram durations = new Histogram();
+
+		Phase(String name) {
+			this.name = name;
+		}
+
+		public long start() {
+			// returns the start time which has to be passed to stop
+			return ENABLED ? System.nanoTime() : 0;
+		}
+
+		public void stop(long startTime) {
+			if (ENABLED) {
+				durations.record(System.nanoTime() - startTime);
+			}
+		}
+
+		public Histogram getDurations() {
+			return durations;
+		}
+	}
+
+	// counter values and phase timings at some point in time, used to summarize a single run
+	public static class Snapshot {
+		private final long[] counters = new long[Counter.values().length];
+		private final long[] phaseCounts = new long[Phase.values().length];
+		private final long[] phaseNanos = new long[Phase.values().length];
+
+		private Snapshot() {
+			for (Counter counter : Counter.values()) {
+				counters[counter.ordinal()] = counter.get();
+			}
+			for (Phase phase : Phase.values()) {
+				phaseCounts[phase.ordinal()] = phase.durations.count();
+				phaseNanos[phase.ordinal()] = phase.durations.sum();
+			}
+		}
+	}
+
+	private static final Snapshot EMPTY = new Snapshot();
+
+	static {
+		if (ENABLED) {
+			register();
+		}
+	}
+
+	public static Snapshot snapshot() {
+		return new Snapshot();
+	}
+
+	public static String summary() {
+		// summary of everything recorded since the metrics were last reset
+		return summary(EMPTY);
+	}
+
+	public static String summary(Snapshot since) {
+		if (!ENABLED) {
+			return "Metrics are disabled";
+		}
+
+		StringBuilder summary = new StringBuilder();
+		Snapshot now = snapshot();
+		// one line per counter followed by one line per phase that was entered
+		for (Counter counter : Counter.values()) {
+			long value = now.counters[counter.ordinal()] - since.counters[counter.ordinal()];
+			summary.append(counter.name).append(": ").append(value).append('\n');
+		}
+		for (Phase phase : Phase.values()) {
+			long count = now.phaseCounts[phase.ordinal()] - since.phaseCounts[phase.ordinal()];
+			if (count > 0) {
+				double millis = (now.phaseNanos[phase.ordinal()] - since.phaseNanos[phase.ordinal()]) / 1e6;
+				summary.append(phase.name).append(" time: ").append(String.format(Locale.ROOT, "%.3f", millis))
+						.append(" ms (").append(count).append(count == 1 ? " call)" : " calls)").append('\n');
+			}
+		}
+		return summary.toString();
+	}
+
+	public static void reset() {
+		for (Counter counter : Counter.values()) {
+			counter.adder.reset();
+		}
+		for (Phase phase : Phase.values()) {
+			phase.durations.reset();
+		}
+	}
+
+	private static void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName("warehouse:type=Metrics"));
+		} catch (JMException e) {
+			// metrics are still recorded and printed, they are just not available via JMX
+			System.err.println(e.getMessage());
+		}
+	}
+
+	// view of the metrics for JMX clients
+	private static class MetricsBean implements MetricsMXBean {
+		public long getLossEvaluations() {
+			return Counter.LOSS_EVALUATIONS.get();
+		}
+
+		public long getNeighboursGenerated() {
+			return Counter.NEIGHBOURS_GENERATED.get();
+		}
+
+		public long getAcceptedMoves() {
+			return Counter.ACCEPTED_MOVES.get();
+		}
+
+		public long getRejectedMoves() {
+			return Counter.REJECTED_MOVES.get();
+		}
+
+		public long getIterations() {
+			return Counter.ITERATIONS.get();
+		}
+
+		public long getRestarts() {
+			return Counter.RESTARTS.get();
+		}
+
+		public long getParseCount() {
+			return Phase.PARSE.durations.count();
+		}
+
+		public double getParseMillis() {
+			return Phase.PARSE.durations.sum() / 1e6;
+		}
+
+		public long getIndexCount() {
+			return Phase.INDEX.durations.count();
+		}
+
+		public double getIndexMillis() {
+			return Phase.INDEX.durations.sum() / 1e6;
+		}
+
+		public long getSearchCount() {
+			return Phase.SEARCH.durations.count();
+		}
+
+		public double getSearchMillis() {
+			return Phase.SEARCH.durations.sum() / 1e6;
+		}
+
+		public double getSearchMillis99thPercentile() {
+			return Phase.SEARCH.durations.percentile(99) / 1e6;
+		}
+
+		public String getSummary() {
+			return summary();
+		}
+
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+
+}
\ No newline at end of file
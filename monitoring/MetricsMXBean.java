@@ -0,0 +1,41 @@
+package monitoring;
+
+/*
+ *	The MetricsMXBean interface defines which metrics of the Metrics class are exposed via JMX.
+ *	The metrics are registered as an MXBean named "warehouse:type=Metrics" and can be inspected
+ *	with any JMX client like jconsole or VisualVM while the program is running.
+ */
+
+public interface MetricsMXBean {
+
+	long getLossEvaluations();
+
+	long getNeighboursGenerated();
+
+	long getAcceptedMoves();
+
+	long getRejectedMoves();
+
+	long getIterations();
+
+	long getRestarts();
+
+	long getParseCount();
+
+	double getParseMillis();
+
+	long getIndexCount();
+
+	double getIndexMillis();
+
+	long getSearchCount();
+
+	double getSearchMillis();
+
+	double getSearchMillis99thPercentile();
+
+	String getSummary();
+
+	void reset();
+
+}
\ No newline at end of file
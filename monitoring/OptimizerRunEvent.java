@@ -0,0 +1,73 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ *	The OptimizerRunEvent class is a Java Flight Recorder event which is emitted once for every run
+ *	of an optimizer. Its duration is the runtime of the optimizer and it records the problem size,
+ *	the random seed and the quality of the final state. It is recorded by a standard recording
+ *	started with -XX:StartFlightRecording and can be correlated with GC and CPU samples in JDK
+ *	Mission Control.
+ */
+
+@Name("warehouse.OptimizerRun")
+@Label("Optimizer Run")
+@Category({"Warehouse", "Optimization"})
+@Description("A single run of a local search optimizer")
+@StackTrace(false)
+public class OptimizerRunEvent extends Event {
+
+	@Label("Algorithm")
+	private String algorithm;
+
+	@Label("PSU Count")
+	private int psuCount;
+
+	@Label("Order Size")
+	private int orderSize;
+
+	@Label("Seed")
+	private long seed;
+
+	@Label("Final Score")
+	@Description("Exact score of the returned state, larger is better")
+	private long finalScore;
+
+	@Label("PSUs Used")
+	private int psusUsed;
+
+	@Label("Items Covered")
+	private int itemsCovered;
+
+	public static OptimizerRunEvent start(String algorithm, int psuCount, int orderSize, long seed) {
+		OptimizerRunEvent event = new OptimizerRunEvent();
+		if (event.isEnabled()) {
+			// only fill the event if it is going to be recorded
+			event.algorithm = algorithm;
+			event.psuCount = psuCount;
+			event.orderSize = orderSize;
+			event.seed = seed;
+			event.begin();
+		}
+		return event;
+	}
+
+	public boolean finishing() {
+		// stop the duration, the caller only calculates the final values if this returns true
+		end();
+		return shouldCommit();
+	}
+
+	public void finish(long finalScore, int psusUsed, int itemsCovered) {
+		this.finalScore = finalScore;
+		this.psusUsed = psusUsed;
+		this.itemsCovered = itemsCovered;
+		commit();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ *	The ParseEvent class is a Java Flight Recorder event which is emitted for every parsed warehouse
+ *	or order file. Its duration is the time spent reading and parsing the file and it records how
+ *	many entries (PSUs or ordered items) were found and whether parsing succeeded.
+ */
+
+@Name("warehouse.Parse")
+@Label("Parse File")
+@Category({"Warehouse", "Parsing"})
+@Description("Parsing of a warehouse or order file")
+@StackTrace(false)
+public class ParseEvent extends Event {
+
+	@Label("File Type")
+	private String fileType;
+
+	@Label("Path")
+	private String path;
+
+	@Label("Entries")
+	@Description("Number of PSUs in a warehouse file or ordered items in an order file")
+	private int entries;
+
+	@Label("Success")
+	private boolean success;
+
+	public static ParseEvent start(String fileType, String path) {
+		ParseEvent event = new ParseEvent();
+		if (event.isEnabled()) {
+			event.fileType = fileType;
+			event.path = path;
+			event.begin();
+		}
+		return event;
+	}
+
+	public void finish(int entries, boolean success) {
+		end();
+		if (shouldCommit()) {
+			this.entries = entries;
+			this.success = success;
+			commit();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,303 @@
+package monitoring;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.io.IOException;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ *	The Trace class records how the score of an optimizer run develops over time. While a trace is
+ *	active every optimizer adds one entry per iteration with the elapsed time, the iteration, the
+ *	current score, the best score, the number of used PSUs and the number of covered items. The
+ *	entries are stored in preallocated arrays used as a ring buffer, so recording does not allocate
+ *	and a long run only keeps its newest entries. Every entry belongs to a run of an engine: each
+ *	optimizer run (and each hill climber of parallel hill climbing) begins its own run in the
+ *	trace, which becomes the current run of its thread, and the entries are exported with the run
+ *	ID and the engine name. So the entries of engines running at the same time (parallel hill
+ *	climbing, the portfolio, the components of a decomposition) can be told apart and each has its
+ *	own iteration counter. The portfolio and the decomposition also record the global best state
+ *	in a run of their own whenever it improves. The engine names are kept in a ring buffer of the
+ *	same capacity, and while no trace is active beginning a run allocates nothing. After the run
+ *	the trace can be exported as CSV or JSON together with metadata describing the run, which
+ *	allows to compare quality over time curves of different algorithms and parameters.
+ */
+
+public class Trace {
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final String[] COLUMNS = {
+		"elapsed_nanos", "run", "engine", "iteration", "current_score", "best_score", "psus_used", "items_covered"
+	};
+
+	// run ID of entries recorded outside of any run
+	private static final int NO_RUN = -1;
+
+	// a run of an engine in a trace, runs of the same thread are nested (e.g. parallel hill climbing
+	// inside a portfolio worker), the previous run becomes current again when a run ends
+	public static class Run {
+		private final Trace trace;
+		private final int id;
+		private final Run previous;
+
+		private Run(Trace trace, int id, Run previous) {
+			this.trace = trace;
+			this.id = id;
+			this.previous = previous;
+		}
+	}
+
+	// run returned by beginRun while no trace is active and the thread is not inside any run
+	private static final Run NO_TRACE = new Run(null, NO_RUN, null);
+
+	// the trace optimizers record into, null if no trace is recorded
+	private static volatile Trace active;
+	// the run the current thread records into
+	private static final ThreadLocal<Run> currentRuns = new ThreadLocal<>();
+
+	// ring buffer with one array per column, the capacity is a power of two
+	private final int mask;
+	private final long[] elapsed;
+	private final int[] runs;
+	private final long[] iterations;
+	private final long[] currentScores;
+	private final long[] bestScores;
+	private final int[] psusUsed;
+	private final int[] itemsCovered;
+
+	// total number of recorded entries, the entry with index i is stored at i & mask
+	private final AtomicLong count = new AtomicLong();
+	private volatile long startTime = System.nanoTime();
+
+	// engine names of the newest runs, the run with ID i is stored at i & mask, and the number of
+	// runs begun in this trace, both guarded by the lock of runEngines
+	private final String[] runEngines;
+	private int runCount;
+
+	// describes the run, e.g. the algorithm and the problem files
+	private final Map<String, String> metadata = new LinkedHashMap<>();
+
+	public Trace() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public Trace(int capacity) {
+		// round the capacity up to a power of two so the ring buffer index is a bit mask
+		int size = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1);
+		mask = size - 1;
+		elapsed = new long[size];
+		runs = new int[size];
+		iterations = new long[size];
+		currentScores = new long[size];
+		bestScores = new long[size];
+		psusUsed = new int[size];
+		itemsCovered = new int[size];
+		runEngines = new String[size];
+	}
+
+	// ----------------- recording ----------------- \\
+
+	public static void start(Trace trace) {
+		// all optimizers record into this trace until stop is called, the time starts now
+		trace.startTime = System.nanoTime();
+		active = trace;
+	}
+
+	public static Trace stop() {
+		Trace trace = active;
+		active = null;
+		return trace;
+	}
+
+	public static boolean isActive() {
+		return active != null;
+	}
+
+	public static Run beginRun(String engine) {
+		// the new run is the current run of this thread until endRun is called
+		Trace trace = active;
+		Run previous = currentRuns.get();
+		if (trace == null && previous == null) {
+			// nothing to record into and nothing to restore, so endRun finds no run either
+			return NO_TRACE;
+		}
+		int id = NO_RUN;
+		if (trace != null) {
+			synchronized (trace.runEngines) {
+				id = trace.runCount++;
+				trace.runEngines[id & trace.mask] = engine;
+			}
+		}
+		Run run = new Run(trace, id, previous);
+		currentRuns.set(run);
+		return run;
+	}
+
+	public static void endRun() {
+		// the run that was current before the last beginRun of this thread becomes current again
+		Run run = currentRuns.get();
+		if (run != null && run.previous != null) {
+			currentRuns.set(run.previous);
+		} else {
+			currentRuns.remove();
+		}
+	}
+
+	public static Run currentRun() {
+		return currentRuns.get();
+	}
+
+	public static void record(long iteration, long currentScore, long bestScore, int psus, int items) {
+		// record into the current run of this thread
+		record(currentRuns.get(), iteration, currentScore, bestScore, psus, items);
+	}
+
+	public static void record(Run run, long iteration, long currentScore, long bestScore, int psus, int items) {
+		// record into the given run, e.g. the run of a portfolio from one of its workers
+		Trace trace = active;
+		if (trace != null) {
+			int id = run != null && run.trace == trace ? run.id : NO_RUN;
+			trace.add(id, iteration, currentScore, bestScore, psus, items);
+		}
+	}
+
+	public void add(int run, long iteration, long currentScore, long bestScore, int psus, int items) {
+		// claim a slot, concurrent recorders never write into the same slot unless the buffer wraps
+		int slot = (int) count.getAndIncrement() & mask;
+		elapsed[slot] = System.nanoTime() - startTime;
+		runs[slot] = run;
+		iterations[slot] = iteration;
+		currentScores[slot] = currentScore;
+		bestScores[slot] = bestScore;
+		psusUsed[slot] = psus;
+		itemsCovered[slot] = items;
+	}
+
+	public void setMetadata(String key, Object value) {
+		synchronized (metadata) {
+			metadata.put(key, String.valueOf(value));
+		}
+	}
+
+	public int size() {
+		// number of entries still in the buffer
+		return (int) Math.min(count.get(), mask + 1);
+	}
+
+	public long dropped() {
+		// number of old entries that were overwritten
+		return Math.max(count.get() - (mask + 1), 0);
+	}
+
+	// ----------------- export ----------------- \\
+
+	public void export(String path) throws IOException {
+		// the format is chosen by the file extension, everything except .json is written as CSV
+		PrintWriter writer = new PrintWriter(new FileWriter(path));
+		try {
+			if (path.toLowerCase(Locale.ROOT).endsWith(".json")) {
+				writeJson(writer);
+			} else {
+				writeCsv(writer);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	public void writeCsv(PrintWriter writer) {
+		// metadata as comment lines, then a header and one line per entry
+		for (Map.Entry<String, String> entry : metadataCopy().entrySet()) {
+			writer.println("# " + entry.getKey() + "=" + entry.getValue());
+		}
+		writer.println(String.join(",", COLUMNS));
+
+		// copy the engine names of the newest runs together with the number of runs they belong to
+		String[] engines;
+		int runCount;
+		synchronized (runEngines) {
+			engines = runEngines.clone();
+			runCount = this.runCount;
+		}
+		long first = count.get() - size();
+		long last = first + size();
+		for (long i = first; i < last; i++) {
+			int slot = (int) i & mask;
+			writer.println(elapsed[slot] + "," + runs[slot] + "," + engine(engines, runCount, runs[slot]) + ","
+					+ iterations[slot] + "," + currentScores[slot] + "," + bestScores[slot] + ","
+					+ psusUsed[slot] + "," + itemsCovered[slot]);
+		}
+	}
+
+	public void writeJson(PrintWriter writer) {
+		writer.println("{");
+		writer.println("  \"metadata\": {");
+		int index = 0;
+		Map<String, String> copy = metadataCopy();
+		for (Map.Entry<String, String> entry : copy.entrySet()) {
+			writer.println("    " + quote(entry.getKey()) + ": " + quote(entry.getValue())
+					+ (++index < copy.size() ? "," : ""));
+		}
+		writer.println("  },");
+
+		// the entries are written as rows of values in the order of the columns
+		writer.print("  \"columns\": [");
+		for (int i = 0; i < COLUMNS.length; i++) {
+			writer.print((i == 0 ? "" : ", ") + quote(COLUMNS[i]));
+		}
+		writer.println("],");
+		writer.println("  \"entries\": [");
+		// copy the engine names of the newest runs together with the number of runs they belong to
+		String[] engines;
+		int runCount;
+		synchronized (runEngines) {
+			engines = runEngines.clone();
+			runCount = this.runCount;
+		}
+		long first = count.get() - size();
+		long last = first + size();
+		for (long i = first; i < last; i++) {
+			int slot = (int) i & mask;
+			writer.println("    [" + elapsed[slot] + ", " + runs[slot] + ", " + quote(engine(engines, runCount, runs[slot])) + ", "
+					+ iterations[slot] + ", " + currentScores[slot] + ", " + bestScores[slot] + ", "
+					+ psusUsed[slot] + ", " + itemsCovered[slot] + "]" + (i + 1 < last ? "," : ""));
+		}
+		writer.println("  ]");
+		writer.println("}");
+	}
+
+	private String engine(String[] engines, int runCount, int run) {
+		// entries recorded outside of a run or in a run whose name was overwritten have no engine
+		return run >= 0 && run < runCount && runCount - run <= engines.length ? engines[run & mask] : "";
+	}
+
+	private Map<String, String> metadataCopy() {
+		// the entry counts are always part of the metadata
+		synchronized (metadata) {
+			Map<String, String> copy = new LinkedHashMap<>(metadata);
+			copy.put("entries", Integer.toString(size()));
+			copy.put("dropped", Long.toString(dropped()));
+			return copy;
+		}
+	}
+
+	private static String quote(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c < ' ') {
+				builder.append(String.format("\\u%04x", (int) c));
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.append('"').toString();
+	}
+
+}
\ No newline at end of file
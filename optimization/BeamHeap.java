@@ -0,0 +1,160 @@
+package optimization;
+
+import util.LongHashSet;
+
+/*
+ *	The BeamHeap class holds the beam of local beam search. It is a bounded binary min-heap over
+ *	primitive arrays which keeps the states with the largest keys offered to it, so inserting a
+ *	neighbour costs O(log k) and rejecting one that is worse than the whole beam costs O(1).
+ *	States are identified by their Zobrist hash and a state that is already part of the beam is
+ *	rejected, which keeps the beam from filling up with copies of the same state. The state arrays
+ *	are allocated once and reused whenever a state is inserted or the heap is cleared. A neighbour
+ *	is offered as its parent state and the index of the flipped PSU, so it is only copied if it
+ *	actually enters the beam.
+ */
+
+class BeamHeap {
+
+	private final int capacity;
+	private int size;
+
+	// heap ordered by key, the entry with the smallest key is at index 0
+	private final double[] keys;
+	private final long[] scores;
+	private final long[] hashes;
+	private final boolean[][] states;
+
+	// hashes of all states currently in the heap
+	private final LongHashSet members;
+
+	BeamHeap(int capacity, int psuCount) {
+		this.capacity = capacity;
+		keys = new double[capacity];
+		scores = new long[capacity];
+		hashes = new long[capacity];
+		states = new boolean[capacity][psuCount];
+		members = new LongHashSet(capacity);
+	}
+
+	boolean offer(double key, long score, long hash, boolean[] state, int flipIndex) {
+		if (size == capacity && key <= keys[0]) {
+			// the beam is full and the state is not better than its worst state
+			return false;
+		}
+		if (members.contains(hash)) {
+			// the state is already part of the beam
+			return false;
+		}
+
+		int index;
+		if (size < capacity) {
+			// append the state at the end of the heap
+			index = size++;
+		} else {
+			// replace the worst state at the root of the heap
+			members.remove(hashes[0]);
+			index = 0;
+		}
+
+		// copy the state into the preallocated array of the slot and flip the PSU of the neighbour
+		System.arraycopy(state, 0, states[index], 0, state.length);
+		if (flipIndex != -1) {
+			states[index][flipIndex] = !states[index][flipIndex];
+		}
+		keys[index] = key;
+		scores[index] = score;
+		hashes[index] = hash;
+		members.add(hash);
+
+		if (index == 0) {
+			siftDown(0);
+		} else {
+			siftUp(index);
+		}
+		return true;
+	}
+
+	void clear() {
+		// the state arrays are kept and overwritten by the next inserted states
+		size = 0;
+		members.clear();
+	}
+
+	int size() {
+		return size;
+	}
+
+	long score(int index) {
+		return scores[index];
+	}
+
+	long hash(int index) {
+		return hashes[index];
+	}
+
+	boolean[] state(int index) {
+		return states[index];
+	}
+
+	int best() {
+		int best = 0;
+		// the heap is ordered by key, the best score has to be searched among all entries
+		for (int i = 1; i < size; i++) {
+			if (scores[best] < scores[i]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	private void siftUp(int index) {
+		// move the entry up while it has a smaller key than its parent
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (keys[parent] <= keys[index]) {
+				return;
+			}
+			swap(index, parent);
+			index = parent;
+		}
+	}
+
+	private void siftDown(int index) {
+		// move the entry down while one of its children has a smaller key
+		while (true) {
+			int smallest = index;
+			int left = 2 * index + 1;
+			int right = left + 1;
+			if (left < size && keys[left] < keys[smallest]) {
+				smallest = left;
+			}
+			if (right < size && keys[right] < keys[smallest]) {
+				smallest = right;
+			}
+			if (smallest == index) {
+				return;
+			}
+			swap(index, smallest);
+			index = smallest;
+		}
+	}
+
+	private void swap(int i, int j) {
+		double key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+
+		long score = scores[i];
+		scores[i] = scores[j];
+		scores[j] = score;
+
+		long hash = hashes[i];
+		hashes[i] = hashes[j];
+		hashes[j] = hash;
+
+		boolean[] state = states[i];
+		states[i] = states[j];
+		states[j] = state;
+	}
+
+}
\ No newline at end of file
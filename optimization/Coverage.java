@@ -0,0 +1,114 @@
+package optimization;
+
+/*
+ *	The Coverage class keeps track of which ordered items are covered by a state while the state
+ *	is being modified by a local search. For every ordered item it counts how many selected PSUs
+ *	provide it, so flipping a PSU and calculating how flipping a PSU would change the number of
+ *	covered items only touches the ordered items of this PSU instead of the whole state. The
+ *	state array is not copied, it is modified in place by the flip operation.
+ */
+
+public class Coverage {
+
+	private final Problem problem;
+	private final boolean[] state;
+
+	// number of selected PSUs providing each ordered item
+	private final int[] counts;
+
+	// number of covered ordered items (including duplicates), total cost and number of selected PSUs
+	private int itemsCovered;
+	private long cost;
+	private int psusUsed;
+
+	public Coverage(Problem problem, boolean[] state) {
+		this.problem = problem;
+		this.state = state;
+		counts = new int[problem.itemCount()];
+
+		// add every selected PSU to the counts
+		for (int i = 0; i < state.length; i++) {
+			if (state[i]) {
+				add(i);
+			}
+		}
+	}
+
+	public void flip(int psu) {
+		if (state[psu]) {
+			remove(psu);
+		} else {
+			add(psu);
+		}
+		state[psu] = !state[psu];
+	}
+
+	public int coverageDelta(int psu) {
+		int delta = 0;
+		if (state[psu]) {
+			// removing the PSU uncovers the items only this PSU provides
+			for (int item : problem.items(psu)) {
+				if (counts[item] == 1) {
+					delta -= problem.weight(item);
+				}
+			}
+		} else {
+			// adding the PSU covers the items no other selected PSU provides
+			for (int item : problem.items(psu)) {
+				if (counts[item] == 0) {
+					delta += problem.weight(item);
+				}
+			}
+		}
+		return delta;
+	}
+
+	public long costDelta(int psu) {
+		return state[psu] ? -problem.cost(psu) : problem.cost(psu);
+	}
+
+	public Problem getProblem() {
+		return problem;
+	}
+
+	public boolean[] getState() {
+		return state;
+	}
+
+	public int count(int item) {
+		return counts[item];
+	}
+
+	public int itemsCovered() {
+		return itemsCovered;
+	}
+
+	public long cost() {
+		return cost;
+	}
+
+	public int psusUsed() {
+		return psusUsed;
+	}
+
+	private void add(int psu) {
+		for (int item : problem.items(psu)) {
+			if (counts[item]++ == 0) {
+				itemsCovered += problem.weight(item);
+			}
+		}
+		cost += problem.cost(psu);
+		psusUsed++;
+	}
+
+	private void remove(int psu) {
+		for (int item : problem.items(psu)) {
+			if (--counts[item] == 0) {
+				itemsCovered -= problem.weight(item);
+			}
+		}
+		cost -= problem.cost(psu);
+		psusUsed--;
+	}
+
+}
\ No newline at end of file
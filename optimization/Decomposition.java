@@ -0,0 +1,182 @@
+package optimization;
+
+import java.lang.Runtime;
+import java.lang.InterruptedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import monitoring.Trace;
+
+import util.State;
+
+/*
+ *	The Decomposition class splits a problem into independent subproblems before optimizing it.
+ *	Ordered items and the PSUs providing them form a bipartite graph and whenever two groups of
+ *	items are provided by disjoint sets of PSUs, choosing PSUs for one group does not influence
+ *	the other. The connected components of the graph are found with union-find, every component
+ *	is solved separately in parallel and the partial solutions are merged into one state. PSUs
+ *	that carry none of the ordered items are never selected. This is only valid for objectives
+ *	that are a sum over the components like the lexicographic objective. While merging, the score
+ *	of the merged state is recorded into the decomposition's own run of the trace, because the runs
+ *	solving the components only know the scores of their subproblems.
+ */
+
+public class Decomposition {
+
+	// engine name of the merged state in the trace
+	private static final String NAME = "Decomposition";
+
+	public static boolean[] solve(Problem problem, Solver solver) {
+		List<int[]> components = components(problem);
+
+		// solve the largest components first so the threads finish at roughly the same time
+		components.sort(new Comparator<int[]>() {
+			public int compare(int[] a, int[] b) {
+			        return Integer.compare(b.length, a.length);
+			}
+		});
+
+		Trace.beginRun(NAME);
+		ExecutorService pool = Executors.newFixedThreadPool(
+				Math.max(Math.min(components.size(), Runtime.getRuntime().availableProcessors()), 1));
+		boolean[] state = new boolean[problem.psuCount()];
+		try {
+			// submit one task per component which solves the subproblem of the component
+			List<Future<boolean[]>> results = new ArrayList<>();
+			// the runs of every component draw their seeds from a seed of the component
+			SplittableRandom seeds = new SplittableRandom(State.nextSeed());
+			for (final int[] psus : components) {
+				final long seed = seeds.nextLong();
+				results.add(pool.submit(new Callable<boolean[]>() {
+					public boolean[] call() {
+					        State.setThreadSeed(seed);
+					        try {
+					                return solver.solve(subproblem(problem, psus));
+					        } finally {
+					                State.clearThreadSeed();
+					        }
+					}
+				}));
+			}
+
+			// merge the partial solutions by mapping the local PSU indices back to global ones
+			for (int c = 0; c < components.size(); c++) {
+				int[] psus = components.get(c);
+				boolean[] partial = results.get(c).get();
+				if (partial == null) {
+					// the solver failed on one of the subproblems
+					return null;
+				}
+				for (int i = 0; i < psus.length; i++) {
+					state[psus[i]] = partial[i];
+				}
+				if (Trace.isActive()) {
+					// global best so far, the components that are not merged yet select no PSUs
+					Coverage coverage = new Coverage(problem, state.clone());
+					long score = Loss.score(coverage);
+					Trace.record(c, score, score, coverage.psusUsed(), coverage.itemsCovered());
+				}
+			}
+		} catch (InterruptedException e) {
+			// stop solving the remaining components and let the caller know
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			System.err.println(e.getMessage());
+			return null;
+		} finally {
+			pool.shutdownNow();
+			Trace.endRun();
+		}
+		return state;
+	}
+
+	public static List<int[]> components(Problem problem) {
+		int psuCount = problem.psuCount();
+		// union-find over PSUs (0 to psuCount - 1) and ordered items (psuCount and above)
+		int[] parents = new int[psuCount + problem.itemCount()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
+		for (int i = 0; i < psuCount; i++) {
+			for (int item : problem.items(i)) {
+				union(parents, i, psuCount + item);
+			}
+		}
+
+		// group the PSUs providing ordered items by the root of their component
+		int[] componentIndex = new int[parents.length];
+		Arrays.fill(componentIndex, -1);
+		List<int[]> components = new ArrayList<>();
+		int[] sizes = new int[parents.length];
+		for (int i = 0; i < psuCount; i++) {
+			if (problem.items(i).length > 0) {
+				sizes[find(parents, i)]++;
+			}
+		}
+		int[] filled = new int[parents.length];
+		for (int i = 0; i < psuCount; i++) {
+			if (problem.items(i).length > 0) {
+				int root = find(parents, i);
+				if (componentIndex[root] == -1) {
+					componentIndex[root] = components.size();
+					components.add(new int[sizes[root]]);
+				}
+				components.get(componentIndex[root])[filled[root]++] = i;
+			}
+		}
+		return components;
+	}
+
+	private static Problem subproblem(Problem problem, int[] psus) {
+		// assign local indices to the items of the component in order of appearance
+		int[] localItems = new int[problem.itemCount()];
+		Arrays.fill(localItems, -1);
+		int itemCount = 0;
+		for (int psu : psus) {
+			for (int item : problem.items(psu)) {
+				if (localItems[item] == -1) {
+					localItems[item] = itemCount++;
+				}
+			}
+		}
+
+		// copy the items, weights and costs using the local indices
+		int[][] psuItems = new int[psus.length][];
+		int[] weights = new int[itemCount];
+		long[] costs = new long[psus.length];
+		for (int i = 0; i < psus.length; i++) {
+			int[] items = problem.items(psus[i]);
+			psuItems[i] = new int[items.length];
+			for (int j = 0; j < items.length; j++) {
+				psuItems[i][j] = localItems[items[j]];
+				weights[localItems[items[j]]] = problem.weight(items[j]);
+			}
+			costs[i] = problem.cost(psus[i]);
+		}
+		return new Problem(psuItems, weights, costs);
+	}
+
+	private static int find(int[] parents, int node) {
+		// find the root and halve the path on the way
+		while (parents[node] != node) {
+			parents[node] = parents[parents[node]];
+			node = parents[node];
+		}
+		return node;
+	}
+
+	private static void union(int[] parents, int a, int b) {
+		parents[find(parents, a)] = find(parents, b);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package optimization;
+
+/*
+ *	The LexicographicObjective class compares states lexicographically: a state covering more of
+ *	the ordered items is always better, and among states with the same coverage the one with the
+ *	smaller PSU cost is better. This is encoded in a single exact integer by weighting every
+ *	covered item with one more than the total cost of all PSUs, so no saving in PSU cost can ever
+ *	make up for an uncovered item. In contrast to a normalized float loss, single PSU differences
+ *	never get lost in rounding no matter how large the warehouse is.
+ */
+
+public class LexicographicObjective implements Objective {
+
+	public long score(Problem problem, int itemsCovered, long psuCost) {
+		return itemsCovered * coverageWeight(problem) - psuCost;
+	}
+
+	public long delta(Problem problem, int itemsCovered, long psuCost, int coverageDelta, long costDelta) {
+		// the score is linear in both components, so the delta does not depend on the current state
+		return coverageDelta * coverageWeight(problem) - costDelta;
+	}
+
+	private static long coverageWeight(Problem problem) {
+		// an item is worth more than all PSUs together
+		return problem.totalCost() + 1;
+	}
+
+}
\ No newline at end of file
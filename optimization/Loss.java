@@ -1,23 +1,100 @@
 package optimization;
 
-import java.util.HashSet;
+import java.util.Arrays;
 
 import frame.Warehouse;
 
+import monitoring.Metrics.Counter;
+
 /*
  *	The Loss class implements the loss function used to determine how "good" a certain state is.
  *	It takes into account how many of the ordered items are provided by the current state and
  *	how many PSUs the state requires. Loss should be maximized (maximization problem) to achieve
  *	the best working result requiring the least amount of PSUs while maintaining coverage
- *	of all ordered items. The components (item coverage and PSU count) are normalized so that
- *	the loss function is applicable to different warehouse configurations without adjustment.
- *	Furthermore some local search parameters are tuned to the specific loss implementation which
- *	is another reason to normalize the components since optimization performance depends
- *	on the size of the loss values.
+ *	of all ordered items. The optimizers use an exact integer score defined by an objective
+ *	(coverage first, PSU cost second, see LexicographicObjective), which can be calculated for a
+ *	single PSU flip from the tracked coverage of a state. For displaying results the normalized
+ *	float loss is still available, where the components (item coverage and PSU count) are
+ *	normalized so that the values are comparable between different warehouse configurations.
  */
 
 public class Loss {
 
+	// objective used by all optimizers
+	private static final Objective objective = new LexicographicObjective();
+
+	public static Objective getObjective() {
+		return objective;
+	}
+
+	public static long score(Coverage coverage) {
+		// exact score of the state tracked by the coverage
+		// (deltas are counted by the optimizers once per iteration since they are the hot path)
+		Counter.LOSS_EVALUATIONS.increment();
+		return objective.score(coverage.getProblem(), coverage.itemsCovered(), coverage.cost());
+	}
+
+	public static long score(Problem problem, boolean[] state) {
+		// calculate the coverage of the state once to score it
+		return score(new Coverage(problem, state));
+	}
+
+	public static long[] scores(Problem problem, boolean[][] states) {
+		// score many states at once with the coverage bit masks of the PSUs
+		return problem.evaluator().scores(states);
+	}
+
+	public static void neighbourScores(Problem problem, boolean[] state, long[] scores) {
+		// score every neighbour of the state at once, scores[i] is the score after flipping PSU i
+		problem.evaluator().neighbourScores(state, scores);
+	}
+
+	public static long delta(Coverage coverage, int index) {
+		// exact score change when flipping the PSU at index, only touches the items of this PSU
+		return objective.delta(coverage.getProblem(), coverage.itemsCovered(), coverage.cost(),
+				coverage.coverageDelta(index), coverage.costDelta(index));
+	}
+
+	public static long upperBound(Problem problem) {
+		int psuCount = problem.psuCount();
+
+		// count how many of the ordered items each PSU provides on its own
+		long[] provided = new long[psuCount];
+		for (int i = 0; i < psuCount; i++) {
+			for (int item : problem.items(i)) {
+				provided[i] += problem.weight(item);
+			}
+		}
+		Arrays.sort(provided);
+
+		// count how many ordered items are provided by any PSU at all
+		int coverable = 0;
+		for (int item = 0; item < problem.itemCount(); item++) {
+			if (problem.providers(item).length > 0) {
+				coverable += problem.weight(item);
+			}
+		}
+
+		long[] costs = new long[psuCount];
+		for (int i = 0; i < psuCount; i++) {
+			costs[i] = problem.cost(i);
+		}
+		Arrays.sort(costs);
+
+		// k PSUs never cover more than the k PSUs providing the most ordered items and never
+		// cost less than the k cheapest PSUs, so the best score is at most the maximum over all k
+		long bound = objective.score(problem, 0, 0);
+		long coveredByBestK = 0;
+		long cheapestK = 0;
+		for (int k = 1; k <= psuCount; k++) {
+			coveredByBestK += provided[psuCount - k];
+			cheapestK += costs[k - 1];
+			int covered = (int) Math.min(coveredByBestK, coverable);
+			bound = Math.max(bound, objective.score(problem, covered, cheapestK));
+		}
+		return bound;
+	}
+
 	public static float loss(boolean[] currentState) {
 		// calculate how many of the ordered items are provided by the selected PSUs in currentState
 		// and normalize to the range [0, 1]
@@ -29,19 +106,8 @@ public class Loss {
 	}
 
 	public static int numItemsCovered(boolean[] state) {
-		// get all the items thate are being carried by the selected PSUs in state
-		HashSet<Integer> itemsCarried = Warehouse.maskedItems(state);
-		// get the current order
-		int[] currentOrder = Warehouse.currentOrder();
-
-		int numItemsCovered = 0;
-		// count how many of the items in the current order are among the carried items
-		for (int itemIndex : currentOrder) {
-			if (itemsCarried.contains(itemIndex)) {
-				numItemsCovered++;
-			}
-		}
-		return numItemsCovered;
+		// count how many of the items in the current order are provided by the selected PSUs
+		return new Coverage(Warehouse.problem(), state).itemsCovered();
 	}
 
 	public static int numPSUsUsed(boolean[] state) {
@@ -0,0 +1,20 @@
+package optimization;
+
+/*
+ *	The Objective interface defines how "good" a state is as an exact integer score which should
+ *	be maximized. A score only depends on how many of the ordered items a state covers and on
+ *	the total cost of its PSUs, which allows the optimizers to calculate the score change of
+ *	flipping a single PSU from the incrementally tracked coverage in integer arithmetic.
+ */
+
+public interface Objective {
+
+	long score(Problem problem, int itemsCovered, long psuCost);
+
+	default long delta(Problem problem, int itemsCovered, long psuCost, int coverageDelta, long costDelta) {
+		// score change when the coverage and cost of a state change by the given amounts
+		return score(problem, itemsCovered + coverageDelta, psuCost + costDelta)
+				- score(problem, itemsCovered, psuCost);
+	}
+
+}
\ No newline at end of file
@@ -4,87 +4,204 @@ import java.lang.Thread;
 import java.lang.Runnable;
 import java.lang.InterruptedException;
 
-import java.util.Random;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import util.State;
+import util.Zobrist;
+import util.LongHashSet;
+
+import monitoring.Metrics.Counter;
+import monitoring.IncumbentEvent;
+import monitoring.OptimizerRunEvent;
+import monitoring.Trace;
 
 /*
- *	The Optimizers class contains the code for the five local search algorithms hill climbing,
- *	first choice hill climbing, local beam search, parallel hill climbing and simulated annealing.
+ *	The Optimizers class contains the code for the seven local search algorithms hill climbing,
+ *	first choice hill climbing, (stochastic) local beam search, parallel hill climbing, simulated annealing
+ *	and iterated local search.
  *	Objects of this class should not be created since all the local search operations
  *	are static methods that do not require instantiation. Each of the local search algorithms
- *	takes the PSU count as a parameter (local beam search and parallel hill climbing require
+ *	takes the problem as a parameter (local beam search and parallel hill climbing require
  *	an additional state parameter) and returns a boolean array representing the optimized state.
+ *	States are compared with the exact integer score of the Loss class and neighbours are
+ *	evaluated from the tracked coverage of the current state without creating neighbour states.
  *	In each call to one of the methods the initial state or states are initialized randomly so
- *	multiple calls may result in different results.
+ *	multiple calls may result in different results. Hill climbing, simulated annealing and iterated
+ *	local search can also start from a given state instead, e.g. the solution of a similar order
+ *	(see MinHashIndex). Every run draws its own seed (see State) and passes its own random number
+ *	generator down to the search, so runs never share a generator. Every run with its seed and its
+ *	sampled improvements are reported as flight recorder events.
  */
 
 public class Optimizers {
 
-	// parameters for simulated annealing
-	// this configuration was found by testing
-	private static final double INITIAL_TEMPERATURE = 2500;
-	private static final float LOSS_SCALE = 1e7f;
-	private static final int TEMPERATURE_STEP_DELAY = 5;
-	private static final float TEMPERATURE_DECREASE = 0.3f;
-
-	private static Random rand = new Random();
-
-	public static boolean[] hillClimbing(int psuCount) {
+	// the parameters of simulated annealing and iterated local search are taken from the
+	// profile of the problem's instance class (see Parameters) unless they are passed explicitly
+
+	// parameters for stochastic local beam search
+	// noise measured in the score difference of an average PSU and the number of iterations
+	// without improvement before stopping (the sampled beam can get worse in single iterations)
+	private static final float STOCHASTIC_BEAM_TEMPERATURE = 0.25f;
+	private static final int STOCHASTIC_BEAM_PATIENCE = 10;
+
+	// parameters for iterated local search
+	private static final int ILS_PERTURBATION = 2;
+	private static final int ILS_MAX_PERTURBATION = 8;
+
+	// algorithm names used in the flight recorder events
+	private static final String HILL_CLIMBING = "Hill climbing";
+	private static final String FIRST_CHOICE_HILL_CLIMBING = "First choice hill climbing";
+	private static final String LOCAL_BEAM_SEARCH = "Local beam search";
+	private static final String STOCHASTIC_BEAM_SEARCH = "Stochastic local beam search";
+	private static final String PARALLEL_HILL_CLIMBING = "Parallel hill climbing";
+	private static final String SIMULATED_ANNEALING = "Simulated annealing";
+	private static final String ITERATED_LOCAL_SEARCH = "Iterated local search";
+
+	public static boolean[] hillClimbing(Problem problem) {
 		// public wrapper for hill climbing
-		return hillClimbing(psuCount, false);
+		return hillClimbing(problem, null);
 	}
 
-	public static boolean[] firstChoiceHillClimbing(int psuCount) {
+	public static boolean[] hillClimbing(Problem problem, boolean[] initialState) {
+		// public wrapper for hill climbing starting from the given state, a random state if null
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = startRun(HILL_CLIMBING, problem, seed);
+		return finishRun(event, problem, hillClimbing(problem, initialState, false, new SplittableRandom(seed)));
+	}
+
+	public static boolean[] firstChoiceHillClimbing(Problem problem) {
 		// public wrapper for first choice hill climbing
-		return hillClimbing(psuCount, true);
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = startRun(FIRST_CHOICE_HILL_CLIMBING, problem, seed);
+		return finishRun(event, problem, hillClimbing(problem, null, true, new SplittableRandom(seed)));
+	}
+
+	static OptimizerRunEvent startRun(String algorithm, Problem problem, long seed) {
+		// the seed of the run's random number generator reproduces the run, the entries the run
+		// records into the trace are labelled with the algorithm
+		Trace.beginRun(algorithm);
+		return OptimizerRunEvent.start(algorithm, problem.psuCount(), problem.orderSize(), seed);
+	}
+
+	static boolean[] finishRun(OptimizerRunEvent event, Problem problem, boolean[] result) {
+		Trace.endRun();
+		// the final score is only calculated if the run is actually recorded
+		if (result != null && event.finishing()) {
+			Coverage coverage = new Coverage(problem, result);
+			event.finish(Loss.score(coverage), coverage.psusUsed(), coverage.itemsCovered());
+		}
+		return result;
 	}
 
-	private static boolean[] hillClimbing(int psuCount, boolean firstChoice) {
-		// initialize first state randomly
-		boolean[] current = State.randomState(psuCount);
-		float currentLoss = Loss.loss(current);
+	private static boolean[] initialState(Problem problem, boolean[] initialState, SplittableRandom rand) {
+		// copy the given initial state so the caller's array is not modified, otherwise start randomly
+		return initialState != null ? initialState.clone() : State.randomState(problem.psuCount(), rand);
+	}
 
-		boolean[][] neighbourhood;
-		float newLoss;
+	private static boolean[] hillClimbing(Problem problem, boolean[] initialState, boolean firstChoice,
+			SplittableRandom rand) {
+		String algorithm = firstChoice ? FIRST_CHOICE_HILL_CLIMBING : HILL_CLIMBING;
+		// initialize first state and keep track of the items it covers
+		Coverage current = new Coverage(problem, initialState(problem, initialState, rand));
+		long currentScore = Loss.score(current);
+		long iteration = 0;
 
 		boolean foundBetter = true;
-		// continue as long as we keep improving
-		while (foundBetter) {
+		// continue as long as we keep improving and the calling thread was not interrupted
+		while (foundBetter && !Thread.currentThread().isInterrupted()) {
 			foundBetter = false;
-			// get the neighbourhood of the current state
-			neighbourhood = State.generateNeighbourhood(current);
+			int bestIndex = -1;
+			long bestDelta = 0;
 
 			// (!foundBetter || !firstChoice) is true if firstChoice is false
 			// --> foundBetter has no influence on while condition
 			// if firstChoice is true then foundBetter stops the loop as soon as it becomes true
 			// loop iterates over the neighbourhood, stops after first improvement if firstChoice is true
-			for (int i = 0; i < neighbourhood.length && (!foundBetter || !firstChoice); i++) {
-				newLoss = Loss.loss(neighbourhood[i]);
-				// compare loss of new state to currently best state
-				if (currentLoss < newLoss) {
-					current = neighbourhood[i];
-					currentLoss = newLoss;
+			// (the incremental delta of the tracked coverage is cheaper here than scoring the whole
+			// neighbourhood with the batch evaluator, since hill climbing keeps its coverage anyway)
+			for (int i = 0; i < problem.psuCount() && (!foundBetter || !firstChoice); i++) {
+				// score change of the neighbour where the ith PSU is flipped
+				long delta = Loss.delta(current, i);
+				if (bestDelta < delta) {
+					bestIndex = i;
+					bestDelta = delta;
 					foundBetter = true;
 				}
 			}
+
+			if (foundBetter) {
+				// move to the best (or first better) neighbour
+				current.flip(bestIndex);
+				currentScore += bestDelta;
+				Counter.ACCEPTED_MOVES.increment();
+				// hill climbing only moves uphill, so every move is a new incumbent
+				IncumbentEvent.emit(algorithm, currentScore, iteration);
+			}
+			Trace.record(iteration, currentScore, currentScore, current.psusUsed(), current.itemsCovered());
+			iteration++;
+			// count the evaluated neighbours once per iteration instead of once per neighbour
+			int evaluated = firstChoice && foundBetter ? bestIndex + 1 : problem.psuCount();
+			Counter.NEIGHBOURS_GENERATED.add(evaluated);
+			Counter.LOSS_EVALUATIONS.add(evaluated);
+			Counter.ITERATIONS.increment();
+		}
+		return current.getState();
+	}
+
+	public static boolean[] parallelHillClimbing(Problem problem, int iterations) {
+		// public wrapper for parallel hill climbing with one thread per hill climber
+		return parallelHillClimbing(problem, iterations, true);
+	}
+
+	static boolean[] parallelHillClimbing(Problem problem, int iterations, boolean parallel) {
+		// the portfolio runs the hill climbers one after another, it already uses every core
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = startRun(PARALLEL_HILL_CLIMBING, problem, seed);
+		SplittableRandom rand = new SplittableRandom(seed);
+		return finishRun(event, problem, parallel ? parallelHillClimbingRun(problem, iterations, rand)
+				: sequentialHillClimbingRun(problem, iterations, rand));
+	}
+
+	private static boolean[] sequentialHillClimbingRun(Problem problem, int iterations, SplittableRandom rand) {
+		// same hill climbers as parallelHillClimbingRun, but in the calling thread
+		boolean[][] results = new boolean[iterations][];
+		int finished = 0;
+		while (finished < iterations && !Thread.currentThread().isInterrupted()) {
+			Counter.RESTARTS.increment();
+			Trace.beginRun(HILL_CLIMBING);
+			try {
+				results[finished++] = hillClimbing(problem, null, false, rand.split());
+			} finally {
+				Trace.endRun();
+			}
 		}
-		return current;
+		// only the hill climbers that ran before an interruption are compared
+		return bestResult(problem, Arrays.copyOf(results, finished));
 	}
 
-	public static boolean[] parallelHillClimbing(int psuCount, int iterations) {
+	private static boolean[] parallelHillClimbingRun(Problem problem, int iterations, SplittableRandom rand) {
+		// every hill climber is an independent restart
+		Counter.RESTARTS.add(iterations);
 		Thread[] threads = new Thread[iterations];
 		boolean[][] results = new boolean[iterations][];
 
 		// start n threads for parallel computation
 		for (int i = 0; i < iterations; i++) {
 			final int index = i;
+			// every hill climber gets its own generator split off the generator of the run
+			final SplittableRandom threadRand = rand.split();
 			// initialize thread
 			threads[i] = new Thread(new Runnable() {
 				public void run() {
-				        // run hill climbing in thread and save result into array
-				        results[index] = hillClimbing(psuCount);
+				        // run hill climbing in thread and save result into array, every hill
+				        // climber records into its own run of the trace
+				        Trace.beginRun(HILL_CLIMBING);
+				        try {
+				                results[index] = hillClimbing(problem, null, false, threadRand);
+				        } finally {
+				                Trace.endRun();
+				        }
 				}
 			});
 			threads[index].start();
@@ -96,129 +213,386 @@ public class Optimizers {
 				threads[i].join();
 			}
 		} catch (InterruptedException e) {
-			System.err.println(e.getMessage());
-			return null;
+			// we were interrupted (e.g. by a time budget) -> stop all hill climbers early,
+			// they return their current state which is collected below
+			for (int i = 0; i < threads.length; i++) {
+				threads[i].interrupt();
+			}
+			for (int i = 0; i < threads.length; i++) {
+				try {
+					threads[i].join();
+				} catch (InterruptedException ignored) {
+					// keep waiting, the threads were already told to stop
+				}
+			}
+			// restore the interrupted flag for the caller
+			Thread.currentThread().interrupt();
 		}
+		return bestResult(problem, results);
+	}
 
-		boolean[] bestState = results[0];
-		float bestLoss = Loss.loss(bestState);
-		float currentLoss;
-
-		// find state with maximal loss in the results array
+	private static boolean[] bestResult(Problem problem, boolean[][] results) {
+		if (results.length == 0) {
+			// interrupted before the first hill climber started
+			return null;
+		}
+		// score all results in one pass and find the state with maximal score
+		long[] scores = Loss.scores(problem, results);
+		int best = 0;
 		for (int i = 1; i < results.length; i++) {
-			currentLoss = Loss.loss(results[i]);
-			if (bestLoss < currentLoss) {
-				bestState = results[i];
-				bestLoss = currentLoss;
+			if (scores[best] < scores[i]) {
+				best = i;
 			}
 		}
-		return bestState;
+		return results[best];
 	}
 
-	public static boolean[] localBeamSearch(int psuCount, int beamCount) {
-		// initialize random states
-		boolean[][] buildStates = new boolean[beamCount][];
-		for (int i = 0; i < buildStates.length; i++) {
-			buildStates[i] = State.randomState(psuCount);
-		}
+	public static boolean[] localBeamSearch(Problem problem, int beamCount) {
+		// public wrapper for local beam search
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = startRun(LOCAL_BEAM_SEARCH, problem, seed);
+		return finishRun(event, problem, localBeamSearch(problem, beamCount, false, new SplittableRandom(seed)));
+	}
 
-		boolean[][] bestStates = null;
-		Float[] bestLosses = null;
+	public static boolean[] stochasticBeamSearch(Problem problem, int beamCount) {
+		// public wrapper for stochastic local beam search
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = startRun(STOCHASTIC_BEAM_SEARCH, problem, seed);
+		return finishRun(event, problem, localBeamSearch(problem, beamCount, true, new SplittableRandom(seed)));
+	}
 
-		boolean[][] neighbourhood;
+	private static boolean[] localBeamSearch(Problem problem, int beamCount, boolean stochastic, SplittableRandom rand) {
+		String algorithm = stochastic ? STOCHASTIC_BEAM_SEARCH : LOCAL_BEAM_SEARCH;
+		long iteration = 0;
+		int psuCount = problem.psuCount();
+		// the current beam and the beam that is built from its neighbours, both are reused
+		BeamHeap beam = new BeamHeap(beamCount, psuCount);
+		BeamHeap nextBeam = new BeamHeap(beamCount, psuCount);
+
+		// initialize random states and score them in one pass
+		boolean[][] initialStates = new boolean[beamCount][];
+		for (int i = 0; i < beamCount; i++) {
+			initialStates[i] = State.randomState(psuCount, rand);
+		}
+		long[] initialScores = Loss.scores(problem, initialStates);
+		for (int i = 0; i < beamCount; i++) {
+			beam.offer(initialScores[i], initialScores[i], Zobrist.hash(initialStates[i]), initialStates[i], -1);
+		}
 
-		boolean foundBetter = true;
-		while (foundBetter) {
-			// save the currently best states
-			bestStates = new boolean[beamCount][];
-			bestLosses = new Float[beamCount];
-
-			// iterate over all build states
-			for (boolean[] currentBuilder : buildStates) {
-				neighbourhood = State.generateNeighbourhood(currentBuilder);
-
-				// iterate over neighbourhood of the current build state
-				for (int i = 0; i < neighbourhood.length; i++) {
-					float currentLoss = Loss.loss(neighbourhood[i]);
-					if (bestStates[beamCount - 1] == null || bestLosses[beamCount - 1] < currentLoss) {
-						// the current state should be inserted into the best states array
-						int index = bestStates.length - 1;
-						// move forward while there is a null entry at index
-						while (index >= 0 && bestLosses[index] == null) {
-							index--;
-						}
-
-						if (index == -1) {
-							// array contains only null
-							bestLosses[0] = currentLoss;
-							bestStates[0] = neighbourhood[i];
-						} else {
-							// move forward in the array until we found the place to insert the current state
-							while (index >= 0 && currentLoss >= bestLosses[index]) {
-								if (index < bestStates.length - 1) {
-									// shift the current state back
-									bestLosses[index + 1] = bestLosses[index];
-									bestStates[index + 1] = bestStates[index];
-								}
-								// insert the new state
-								bestLosses[index] = currentLoss;
-								bestStates[index] = neighbourhood[i];
-
-								index--;
-							}
-						}
+		// noise scale of stochastic beam selection, the score difference of an average PSU
+		double temperature = STOCHASTIC_BEAM_TEMPERATURE * problem.totalCost() / Math.max(psuCount, 1);
+		// deterministic beam search stops after the first iteration without improvement
+		int patience = stochastic ? STOCHASTIC_BEAM_PATIENCE : 1;
+
+		// best state found in any iteration
+		boolean[] bestState = beam.state(beam.best()).clone();
+		long bestScore = beam.score(beam.best());
+
+		// scores of the neighbours of a build state
+		long[] neighbourScores = new long[psuCount];
+
+		int iterationsWithoutImprovement = 0;
+		while (iterationsWithoutImprovement < patience && !Thread.currentThread().isInterrupted()) {
+			nextBeam.clear();
+			int accepted = 0;
+
+			// iterate over all states in the beam
+			for (int b = 0; b < beam.size(); b++) {
+				boolean[] builderState = beam.state(b);
+				long builderHash = beam.hash(b);
+				// score the whole neighbourhood of the build state in one pass
+				Loss.neighbourScores(problem, builderState, neighbourScores);
+
+				// iterate over the neighbourhood of the current build state, a neighbour is only
+				// copied into the beam if it is good enough and not already part of the beam
+				for (int i = 0; i < psuCount; i++) {
+					long currentScore = neighbourScores[i];
+					double key = currentScore;
+					if (stochastic) {
+						// perturb the key with Gumbel noise, keeping the k largest keys is then
+						// equivalent to sampling k neighbours with probability exp(score / temperature)
+						key += temperature * -Math.log(-Math.log(1 - rand.nextDouble()));
+					}
+					if (nextBeam.offer(key, currentScore, Zobrist.flip(builderHash, i), builderState, i)) {
+						accepted++;
 					}
 				}
 			}
 
-			if (Loss.loss(buildStates[0]) >= bestLosses[0]) {
-				// no improvement since last iteration -> stop optimization
-				foundBetter = false;
+			// count the evaluated neighbours and how many of them entered the beam once per iteration
+			long evaluated = (long) beam.size() * psuCount;
+			Counter.NEIGHBOURS_GENERATED.add(evaluated);
+			Counter.LOSS_EVALUATIONS.add(evaluated);
+			Counter.ACCEPTED_MOVES.add(accepted);
+			Counter.REJECTED_MOVES.add(evaluated - accepted);
+			Counter.ITERATIONS.increment();
+
+			if (nextBeam.size() == 0) {
+				// there are no neighbours (no PSUs) -> nothing to optimize
+				break;
 			}
-			// use best states from this iteration as the build states in the next iteration
-			buildStates = bestStates;
+
+			int nextBest = nextBeam.best();
+			if (bestScore < nextBeam.score(nextBest)) {
+				// remember the improved state since the beam may move away from it
+				bestState = nextBeam.state(nextBest).clone();
+				bestScore = nextBeam.score(nextBest);
+				iterationsWithoutImprovement = 0;
+				IncumbentEvent.emit(algorithm, bestScore, iteration);
+			} else {
+				// no improvement in this iteration
+				iterationsWithoutImprovement++;
+			}
+
+			if (Trace.isActive()) {
+				// the coverage of the best state is only calculated while a trace is recorded
+				Coverage best = new Coverage(problem, bestState);
+				Trace.record(iteration, nextBeam.score(nextBest), bestScore, best.psusUsed(), best.itemsCovered());
+			}
+			iteration++;
+
+			// use the states of this iteration as the build states in the next iteration
+			BeamHeap swap = beam;
+			beam = nextBeam;
+			nextBeam = swap;
 		}
-		return bestStates[0];
+		return bestState;
 	}
 
-	public static boolean[] simulatedAnnealing(int psuCount) {
-		boolean[] currentState = State.randomState(psuCount);
-		float currentLoss = Loss.loss(currentState);
+	public static boolean[] simulatedAnnealing(Problem problem) {
+		// public wrapper using the tuned parameters of the problem's instance class
+		return simulatedAnnealing(problem, Parameters.forProblem(problem));
+	}
+
+	public static boolean[] simulatedAnnealing(Problem problem, Parameters parameters) {
+		return simulatedAnnealing(problem, parameters, null);
+	}
 
-		double temperature = INITIAL_TEMPERATURE;
+	public static boolean[] simulatedAnnealing(Problem problem, Parameters parameters, boolean[] initialState) {
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = startRun(SIMULATED_ANNEALING, problem, seed);
+		return finishRun(event, problem, simulatedAnnealingRun(problem, parameters, initialState, new SplittableRandom(seed)));
+	}
 
-		boolean[] newState;
-		float newLoss;
-		float evaluator;
+	private static boolean[] simulatedAnnealingRun(Problem problem, Parameters parameters, boolean[] initialState,
+			SplittableRandom rand) {
+		Coverage current = new Coverage(problem, initialState(problem, initialState, rand));
+		// the current score and the best score seen are only tracked for monitoring
+		long currentScore = Loss.score(current);
+		long bestScore = currentScore;
+
+		double temperature = parameters.getInitialTemperature();
+		double temperatureDecrease = parameters.getTemperatureDecrease();
+		int temperatureStepDelay = parameters.getTemperatureStepDelay();
+		// one unit of PSU cost is scaled to lossScale / totalCost like a PSU in the normalized loss
+		double scale = parameters.getLossScale() / Math.max(problem.totalCost(), 1);
+
+		int index;
+		double evaluator;
 		int stepCounter = 0;
+		// moves are counted locally and added to the metrics once at the end
+		long steps = 0;
+		long accepted = 0;
 
-		while (temperature >= 0) {
+		while (temperature >= 0 && !Thread.currentThread().isInterrupted()) {
 			// find a random neighbour in the current neighbourhood
-			newState = State.randomNeighbour(currentState);
-			newLoss = Loss.loss(newState);
+			index = rand.nextInt(problem.psuCount());
 
-			evaluator = (newLoss - currentLoss) * LOSS_SCALE;
+			// the score change is exact, only the acceptance probability uses floating point
+			long delta = Loss.delta(current, index);
+			evaluator = delta * scale;
 			if (evaluator > 0) {
 				// random state is better than current
-				currentState = newState;
-				currentLoss = newLoss;
+				current.flip(index);
+				currentScore += delta;
+				accepted++;
+				if (bestScore < currentScore) {
+					bestScore = currentScore;
+					IncumbentEvent.emit(SIMULATED_ANNEALING, bestScore, steps);
+				}
 			} else {
 				// random state is worse than current
-				if (rand.nextFloat() < Math.exp(evaluator / temperature)) {
+				if (rand.nextDouble() < Math.exp(evaluator / temperature)) {
 					// choose worse random state with probability exp(evaluator / temperature)
-					currentState = newState;
-					currentLoss = newLoss;
+					current.flip(index);
+					currentScore += delta;
+					accepted++;
 				}
 			}
 
+			steps++;
 			stepCounter++;
 			// decrease temperature every nth step
-			if (stepCounter == TEMPERATURE_STEP_DELAY) {
-				temperature -= TEMPERATURE_DECREASE;
+			if (stepCounter == temperatureStepDelay) {
+				temperature -= temperatureDecrease;
 				stepCounter = 0;
+				// trace once per temperature step
+				Trace.record(steps, currentScore, bestScore, current.psusUsed(), current.itemsCovered());
+			}
+		}
+
+		Counter.NEIGHBOURS_GENERATED.add(steps);
+		Counter.LOSS_EVALUATIONS.add(steps);
+		Counter.ACCEPTED_MOVES.add(accepted);
+		Counter.REJECTED_MOVES.add(steps - accepted);
+		Counter.ITERATIONS.add(steps);
+		return current.getState();
+	}
+
+	public static boolean[] iteratedLocalSearch(Problem problem) {
+		// public wrapper using the tuned parameters of the problem's instance class
+		return iteratedLocalSearch(problem, Parameters.forProblem(problem));
+	}
+
+	public static boolean[] iteratedLocalSearch(Problem problem, Parameters parameters) {
+		return iteratedLocalSearch(problem, parameters, null);
+	}
+
+	public static boolean[] iteratedLocalSearch(Problem problem, Parameters parameters, boolean[] initialState) {
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = startRun(ITERATED_LOCAL_SEARCH, problem, seed);
+		return finishRun(event, problem, iteratedLocalSearchRun(problem, parameters.getRestartCount(), initialState,
+				new SplittableRandom(seed)));
+	}
+
+	private static boolean[] iteratedLocalSearchRun(Problem problem, int iterations, boolean[] initialState,
+			SplittableRandom rand) {
+		// transposition table containing the Zobrist hashes of all local optima found so far
+		LongHashSet visited = new LongHashSet();
+
+		// climb to the first local optimum from the initial state
+		Coverage best = new Coverage(problem, initialState(problem, initialState, rand));
+		visited.add(climb(best, Zobrist.hash(best.getState()), visited));
+		long bestScore = Loss.score(best);
+
+		int perturbation = ILS_PERTURBATION;
+		for (int i = 0; i < iterations && !Thread.currentThread().isInterrupted(); i++) {
+			// perturb the best local optimum and climb to the local optimum of the new basin
+			Coverage candidate = new Coverage(problem, best.getState().clone());
+			long hash = perturb(candidate, Zobrist.hash(candidate.getState()), perturbation, rand);
+			hash = climb(candidate, hash, visited);
+			Counter.RESTARTS.increment();
+
+			if (!visited.add(hash)) {
+				// this basin was already explored -> perturb stronger next time
+				perturbation = Math.min(perturbation + 1, ILS_MAX_PERTURBATION);
+				continue;
+			}
+			perturbation = ILS_PERTURBATION;
+
+			// accept the new local optimum if it is at least as good as the best one
+			long candidateScore = Loss.score(candidate);
+			if (bestScore <= candidateScore) {
+				if (bestScore < candidateScore) {
+					IncumbentEvent.emit(ITERATED_LOCAL_SEARCH, candidateScore, i);
+				}
+				best = candidate;
+				bestScore = candidateScore;
+			}
+			Trace.record(i, candidateScore, bestScore, best.psusUsed(), best.itemsCovered());
+		}
+		return best.getState();
+	}
+
+	private static long climb(Coverage current, long hash, LongHashSet visited) {
+		int psuCount = current.getProblem().psuCount();
+
+		// hill climbing in place, the hash of the state is updated with every move
+		// stop as soon as we reach a known local optimum, the rest of its basin was already explored
+		while (!visited.contains(hash) && !Thread.currentThread().isInterrupted()) {
+			int bestIndex = -1;
+			long bestDelta = 0;
+
+			// evaluate all neighbours from the tracked coverage
+			for (int i = 0; i < psuCount; i++) {
+				long delta = Loss.delta(current, i);
+				if (bestDelta < delta) {
+					bestIndex = i;
+					bestDelta = delta;
+				}
+			}
+
+			Counter.NEIGHBOURS_GENERATED.add(psuCount);
+			Counter.LOSS_EVALUATIONS.add(psuCount);
+			Counter.ITERATIONS.increment();
+
+			if (bestIndex == -1) {
+				// no better neighbour -> reached a local optimum
+				break;
+			}
+			// move to the best neighbour
+			current.flip(bestIndex);
+			hash = Zobrist.flip(hash, bestIndex);
+			Counter.ACCEPTED_MOVES.increment();
+		}
+		return hash;
+	}
+
+	private static long perturb(Coverage current, long hash, int flips, SplittableRandom rand) {
+		Problem problem = current.getProblem();
+		if (problem.itemCount() == 0) {
+			// nothing was ordered -> there are no items to perturb around
+			return hash;
+		}
+
+		for (int f = 0; f < flips; f++) {
+			int psu;
+
+			int uncovered = randomUncoveredItem(current, rand);
+			if (uncovered != -1) {
+				// select a random PSU that provides an item which is not covered yet
+				int[] candidates = problem.providers(uncovered);
+				psu = candidates[rand.nextInt(candidates.length)];
+			} else {
+				int redundant = randomRedundantPSU(current, rand);
+				if (redundant != -1) {
+					// remove a selected PSU whose items are all provided by other selected PSUs as well
+					psu = redundant;
+				} else {
+					// every item is covered exactly once -> add a random provider of a random item
+					int[] candidates = problem.providers(rand.nextInt(problem.itemCount()));
+					if (candidates.length == 0) {
+						continue;
+					}
+					psu = candidates[rand.nextInt(candidates.length)];
+					if (current.getState()[psu]) {
+						// the provider is already selected
+						continue;
+					}
+				}
+			}
+
+			current.flip(psu);
+			hash = Zobrist.flip(hash, psu);
+		}
+		return hash;
+	}
+
+	private static int randomUncoveredItem(Coverage current, SplittableRandom rand) {
+		Problem problem = current.getProblem();
+		int result = -1;
+		int found = 0;
+		// reservoir sampling over all uncovered items that can be provided by any PSU
+		for (int item = 0; item < problem.itemCount(); item++) {
+			if (current.count(item) == 0 && problem.providers(item).length > 0 && rand.nextInt(++found) == 0) {
+				result = item;
+			}
+		}
+		return result;
+	}
+
+	private static int randomRedundantPSU(Coverage current, SplittableRandom rand) {
+		Problem problem = current.getProblem();
+		boolean[] state = current.getState();
+		int result = -1;
+		int found = 0;
+		// reservoir sampling over all selected PSUs that could be removed without losing coverage
+		for (int i = 0; i < state.length; i++) {
+			if (state[i] && current.coverageDelta(i) == 0 && rand.nextInt(++found) == 0) {
+				result = i;
 			}
 		}
-		return currentState;
+		return result;
 	}
 
 }
\ No newline at end of file
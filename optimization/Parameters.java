@@ -0,0 +1,159 @@
+package optimization;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/*
+ *	The Parameters class holds the tunable parameters of the optimizers: the initial temperature,
+ *	the temperature decrease, the number of steps per temperature and the loss scale of simulated
+ *	annealing, the beam width of local beam search and the number of restarts of iterated local
+ *	search. Parameter objects are immutable. Tuned parameters are stored as profiles, one for each
+ *	instance class, where problems of similar size fall into the same class. The profiles are read
+ *	once from the file given by -Dwarehouse.profiles (profiles.properties by default) and the
+ *	optimizers use the profile of the class of their problem, or the default parameters if there is
+ *	no profile for it. Profiles are written by the Tuner class.
+ */
+
+public class Parameters {
+
+	// the configuration that was found by testing on problem1.txt
+	public static final Parameters DEFAULT = new Parameters(2500, 0.3, 5, 1e7, 8, 200);
+
+	private static final String PROFILES_PATH = System.getProperty("warehouse.profiles", "profiles.properties");
+
+	// profiles by instance class, loaded on first use
+	private static Map<String, Parameters> profiles;
+
+	private final double initialTemperature;
+	private final double temperatureDecrease;
+	private final int temperatureStepDelay;
+	private final double lossScale;
+	private final int beamWidth;
+	private final int restartCount;
+
+	public Parameters(double initialTemperature, double temperatureDecrease, int temperatureStepDelay,
+			double lossScale, int beamWidth, int restartCount) {
+		this.initialTemperature = initialTemperature;
+		this.temperatureDecrease = temperatureDecrease;
+		this.temperatureStepDelay = temperatureStepDelay;
+		this.lossScale = lossScale;
+		this.beamWidth = beamWidth;
+		this.restartCount = restartCount;
+	}
+
+	public double getInitialTemperature() {
+		return initialTemperature;
+	}
+
+	public double getTemperatureDecrease() {
+		return temperatureDecrease;
+	}
+
+	public int getTemperatureStepDelay() {
+		return temperatureStepDelay;
+	}
+
+	public double getLossScale() {
+		// scales the score change of one unit of PSU cost to the magnitude the temperature is tuned for
+		return lossScale;
+	}
+
+	public int getBeamWidth() {
+		return beamWidth;
+	}
+
+	public int getRestartCount() {
+		return restartCount;
+	}
+
+	public String toString() {
+		return "initialTemperature=" + initialTemperature + ", temperatureDecrease=" + temperatureDecrease
+				+ ", temperatureStepDelay=" + temperatureStepDelay + ", lossScale=" + lossScale
+				+ ", beamWidth=" + beamWidth + ", restartCount=" + restartCount;
+	}
+
+	// ----------------- profiles ----------------- \\
+
+	public static String instanceClass(Problem problem) {
+		// problems whose PSU count and order size have the same order of magnitude share a class
+		return "psus" + magnitude(problem.psuCount()) + "-order" + magnitude(problem.orderSize());
+	}
+
+	public static synchronized Parameters forProblem(Problem problem) {
+		if (profiles == null) {
+			profiles = new HashMap<>();
+			if (new File(PROFILES_PATH).exists()) {
+				try {
+					profiles = loadProfiles(PROFILES_PATH);
+				} catch (IOException | IllegalArgumentException e) {
+					System.err.println("Could not load parameter profiles: " + e.getMessage());
+				}
+			}
+		}
+		Parameters profile = profiles.get(instanceClass(problem));
+		return profile != null ? profile : DEFAULT;
+	}
+
+	public static Map<String, Parameters> loadProfiles(String path) throws IOException {
+		Properties properties = new Properties();
+		FileReader reader = new FileReader(path);
+		try {
+			properties.load(reader);
+		} finally {
+			reader.close();
+		}
+
+		// every key is "<instance class>.<parameter>", missing parameters keep their default
+		Map<String, Parameters> result = new HashMap<>();
+		for (String key : properties.stringPropertyNames()) {
+			String instanceClass = key.substring(0, Math.max(key.lastIndexOf('.'), 0));
+			if (!result.containsKey(instanceClass)) {
+				result.put(instanceClass, new Parameters(
+						Double.parseDouble(properties.getProperty(instanceClass + ".initialTemperature", "" + DEFAULT.initialTemperature)),
+						Double.parseDouble(properties.getProperty(instanceClass + ".temperatureDecrease", "" + DEFAULT.temperatureDecrease)),
+						Integer.parseInt(properties.getProperty(instanceClass + ".temperatureStepDelay", "" + DEFAULT.temperatureStepDelay)),
+						Double.parseDouble(properties.getProperty(instanceClass + ".lossScale", "" + DEFAULT.lossScale)),
+						Integer.parseInt(properties.getProperty(instanceClass + ".beamWidth", "" + DEFAULT.beamWidth)),
+						Integer.parseInt(properties.getProperty(instanceClass + ".restartCount", "" + DEFAULT.restartCount))));
+			}
+		}
+		return result;
+	}
+
+	public static void saveProfiles(String path, Map<String, Parameters> profiles) throws IOException {
+		FileWriter writer = new FileWriter(path);
+		try {
+			writer.write("# parameter profiles by instance class, written by benchmark.Tuner\n");
+			// sorted so the file is stable between runs
+			for (Map.Entry<String, Parameters> entry : new TreeMap<>(profiles).entrySet()) {
+				String prefix = entry.getKey();
+				Parameters parameters = entry.getValue();
+				writer.write(prefix + ".initialTemperature=" + parameters.initialTemperature + "\n");
+				writer.write(prefix + ".temperatureDecrease=" + parameters.temperatureDecrease + "\n");
+				writer.write(prefix + ".temperatureStepDelay=" + parameters.temperatureStepDelay + "\n");
+				writer.write(prefix + ".lossScale=" + parameters.lossScale + "\n");
+				writer.write(prefix + ".beamWidth=" + parameters.beamWidth + "\n");
+				writer.write(prefix + ".restartCount=" + parameters.restartCount + "\n");
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static int magnitude(int value) {
+		// largest power of ten not larger than value
+		int magnitude = 1;
+		while (magnitude <= value / 10) {
+			magnitude *= 10;
+		}
+		return magnitude;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package optimization;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import monitoring.Metrics.Counter;
+
+/*
+ *	The ParetoFront class calculates the trade-off between the number of covered ordered items and
+ *	the number of PSUs, e.g. to find the fewest PSUs that cover 90% of an order for a partial
+ *	shipment. Instead of optimizing every target separately the front is built in one sweep from a
+ *	given selection: PSUs covering the most missing items are added until nothing more can be
+ *	covered, then the PSU losing the fewest items is removed step by step until no PSU is left.
+ *	After every step the selection is refined with a short local search that swaps a selected PSU
+ *	for an unselected one while this covers more items, so the number of PSUs stays the same.
+ *	Every point of the front keeps its selection. Points covering no more items than a point with
+ *	fewer PSUs are not part of the front.
+ */
+
+public class ParetoFront {
+
+	// maximal number of passes over the selected PSUs when refining a point
+	private static final int REFINE_PASSES = 3;
+
+	public static class Point {
+
+		private final int psusUsed;
+		private final int itemsCovered;
+		private final boolean[] selection;
+
+		private Point(int psusUsed, int itemsCovered, boolean[] selection) {
+			this.psusUsed = psusUsed;
+			this.itemsCovered = itemsCovered;
+			this.selection = selection;
+		}
+
+		public int getPsusUsed() {
+			return psusUsed;
+		}
+
+		public int getItemsCovered() {
+			return itemsCovered;
+		}
+
+		public boolean[] getSelection() {
+			return selection;
+		}
+
+	}
+
+	public static List<Point> sweep(Problem problem, boolean[] initialState) {
+		int psuCount = problem.psuCount();
+		// best point for every number of PSUs, the sweep visits every number at most once
+		Point[] points = new Point[psuCount + 1];
+		Coverage current = new Coverage(problem, initialState.clone());
+		record(points, current);
+
+		// cover one more item per step until no PSU adds anything
+		int added;
+		while ((added = bestAddition(current)) != -1 && !Thread.currentThread().isInterrupted()) {
+			current.flip(added);
+			refine(current);
+			record(points, current);
+		}
+
+		// PSUs whose items are all provided by other selected PSUs do not add to the coverage
+		int redundant;
+		while ((redundant = cheapestRemoval(current, true)) != -1) {
+			current.flip(redundant);
+		}
+		record(points, current);
+
+		// drop one more PSU per step until the selection is empty
+		int removed;
+		while ((removed = cheapestRemoval(current, false)) != -1 && !Thread.currentThread().isInterrupted()) {
+			current.flip(removed);
+			refine(current);
+			record(points, current);
+		}
+
+		// keep the points that cover more items than every point with fewer PSUs
+		List<Point> front = new ArrayList<>();
+		int bestCovered = -1;
+		for (Point point : points) {
+			if (point != null && bestCovered < point.getItemsCovered()) {
+				front.add(point);
+				bestCovered = point.getItemsCovered();
+			}
+		}
+		return front;
+	}
+
+	public static Point fewestPSUs(List<Point> front, double coverage, int orderSize) {
+		// the first point of the front covering at least the given share of the order, null if none does
+		for (Point point : front) {
+			if (point.getItemsCovered() >= coverage * orderSize) {
+				return point;
+			}
+		}
+		return null;
+	}
+
+	private static void record(Point[] points, Coverage current) {
+		Point point = points[current.psusUsed()];
+		if (point == null || point.getItemsCovered() < current.itemsCovered()) {
+			points[current.psusUsed()] = new Point(current.psusUsed(), current.itemsCovered(), current.getState().clone());
+		}
+	}
+
+	private static int bestAddition(Coverage current) {
+		Problem problem = current.getProblem();
+		boolean[] state = current.getState();
+		int bestPSU = -1;
+		int bestGain = 0;
+		// the unselected PSU covering the most missing items, the cheaper one on ties
+		for (int psu = 0; psu < state.length; psu++) {
+			if (state[psu]) {
+				continue;
+			}
+			int gain = current.coverageDelta(psu);
+			if (bestGain < gain || (gain > 0 && gain == bestGain && problem.cost(psu) < problem.cost(bestPSU))) {
+				bestPSU = psu;
+				bestGain = gain;
+			}
+		}
+		Counter.NEIGHBOURS_GENERATED.add(state.length);
+		return bestPSU;
+	}
+
+	private static int cheapestRemoval(Coverage current, boolean redundantOnly) {
+		Problem problem = current.getProblem();
+		boolean[] state = current.getState();
+		int bestPSU = -1;
+		int bestLoss = Integer.MAX_VALUE;
+		// the selected PSU losing the fewest covered items, the more expensive one on ties
+		for (int psu = 0; psu < state.length; psu++) {
+			if (!state[psu]) {
+				continue;
+			}
+			int loss = -current.coverageDelta(psu);
+			if (redundantOnly && loss > 0) {
+				continue;
+			}
+			if (loss < bestLoss || (loss == bestLoss && problem.cost(bestPSU) < problem.cost(psu))) {
+				bestPSU = psu;
+				bestLoss = loss;
+			}
+		}
+		Counter.NEIGHBOURS_GENERATED.add(state.length);
+		return bestPSU;
+	}
+
+	private static void refine(Coverage current) {
+		boolean[] state = current.getState();
+		int psuCount = state.length;
+
+		// swap a selected PSU for the unselected PSU covering the most items without it, the
+		// number of PSUs stays the same and the coverage only increases
+		for (int pass = 0; pass < REFINE_PASSES && !Thread.currentThread().isInterrupted(); pass++) {
+			boolean improved = false;
+			for (int removed = 0; removed < psuCount; removed++) {
+				if (!state[removed]) {
+					continue;
+				}
+				int covered = current.itemsCovered();
+				current.flip(removed);
+
+				int bestPSU = removed;
+				int bestCovered = covered;
+				for (int added = 0; added < psuCount; added++) {
+					if (!state[added] && added != removed) {
+						int swapCovered = current.itemsCovered() + current.coverageDelta(added);
+						if (bestCovered < swapCovered) {
+							bestPSU = added;
+							bestCovered = swapCovered;
+						}
+					}
+				}
+				Counter.NEIGHBOURS_GENERATED.add(psuCount);
+				Counter.LOSS_EVALUATIONS.add(psuCount);
+
+				// put the removed PSU back if no swap covers more items
+				current.flip(bestPSU);
+				if (bestPSU != removed) {
+					Counter.ACCEPTED_MOVES.increment();
+					improved = true;
+				}
+			}
+			Counter.ITERATIONS.increment();
+			if (!improved) {
+				break;
+			}
+		}
+	}
+
+}
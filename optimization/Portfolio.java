@@ -0,0 +1,327 @@
+package optimization;
+
+import java.lang.Runtime;
+import java.lang.InterruptedException;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import monitoring.IncumbentEvent;
+import monitoring.OptimizerRunEvent;
+import monitoring.Trace;
+
+import util.State;
+
+/*
+ *	The Portfolio class races all local search algorithms from the Optimizers class against each
+ *	other under a single time budget. Every engine run is a task on a thread pool with one thread
+ *	per CPU core which is shared by all races, so races running at the same time (e.g. one per
+ *	component of a decomposition) split the cores instead of starting a pool each. A race keeps one
+ *	engine run per core queued or running and every finished run is compared to the global best
+ *	state. The engines get CPU shares which adapt towards the engines that improved the global best
+ *	the fastest on the current order, while every engine keeps a small minimal share. The shares
+ *	are metered by elapsed engine time: the next run is given to the engine with the least used
+ *	time (including runs still in progress) relative to its share, so an engine with long runs
+ *	gets fewer runs and the time of every engine follows its share. Parallel hill climbing runs
+ *	its hill climbers one after another, since every engine run already has a core of its own.
+ *	The race stops as soon as the deadline is reached or the best state reaches the upper bound
+ *	of the exact score. Races solving the components of one decomposition share a deadline, so
+ *	the decomposition as a whole keeps the time budget. Every new global best state is recorded
+ *	into the portfolio's own run of the trace.
+ */
+
+public class Portfolio {
+
+	// default time budget of a portfolio run in milliseconds
+	public static final long DEFAULT_TIME_BUDGET = 10000;
+
+	// algorithm name used in the flight recorder events
+	private static final String NAME = "Portfolio";
+
+	// minimal CPU share of every engine so that engines can recover from a bad start
+	private static final double MIN_SHARE = 0.05;
+	// weight of the newest measurement in the smoothed improvement rate of an engine
+	private static final double RATE_SMOOTHING = 0.3;
+
+	// one thread per CPU core shared by all races, the threads do not keep the program running
+	private static final int threadCount = Runtime.getRuntime().availableProcessors();
+	private static final ExecutorService pool = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+		public Thread newThread(Runnable runnable) {
+		        Thread thread = new Thread(runnable, "portfolio");
+		        thread.setDaemon(true);
+		        return thread;
+		}
+	});
+
+	// an engine is a single run of one of the optimizers
+	private interface Engine {
+		boolean[] run(Problem problem, int stateCount);
+	}
+
+	private static final Engine[] engines = {
+		new Engine() {
+			public boolean[] run(Problem problem, int stateCount) {
+			        return Optimizers.hillClimbing(problem);
+			}
+		},
+		new Engine() {
+			public boolean[] run(Problem problem, int stateCount) {
+			        return Optimizers.firstChoiceHillClimbing(problem);
+			}
+		},
+		new Engine() {
+			public boolean[] run(Problem problem, int stateCount) {
+			        return Optimizers.localBeamSearch(problem, stateCount);
+			}
+		},
+		new Engine() {
+			public boolean[] run(Problem problem, int stateCount) {
+			        return Optimizers.stochasticBeamSearch(problem, stateCount);
+			}
+		},
+		new Engine() {
+			public boolean[] run(Problem problem, int stateCount) {
+			        return Optimizers.parallelHillClimbing(problem, stateCount, false);
+			}
+		},
+		new Engine() {
+			public boolean[] run(Problem problem, int stateCount) {
+			        return Optimizers.simulatedAnnealing(problem);
+			}
+		},
+		new Engine() {
+			public boolean[] run(Problem problem, int stateCount) {
+			        return Optimizers.iteratedLocalSearch(problem);
+			}
+		}
+	};
+
+	// problem parameters of this run, the deadline is a System.nanoTime() value
+	private final Problem problem;
+	private final int stateCount;
+	private final long deadline;
+	private final long upperBound;
+
+	// global best state found by any engine
+	private boolean[] bestState;
+	private long bestScore;
+	// number of finished engine runs, the iteration of the global best in the trace and events
+	private long finishedRuns;
+
+	// run of the trace the global best is recorded into, the engines record into their own runs
+	private final Trace.Run traceRun;
+
+	// smoothed improvement of the global best score per millisecond for each engine
+	private final double[] rates = new double[engines.length];
+	// nanoseconds used by the finished runs of each engine
+	private final long[] usedTime = new long[engines.length];
+	// number of running runs of each engine and the sum of their start times, so the time used by
+	// running runs is runningCount * now - runningStarts
+	private final int[] runningCount = new int[engines.length];
+	private final long[] runningStarts = new long[engines.length];
+
+	// threads currently running an engine of this race, interrupted when the race is over
+	private final Set<Thread> running = new HashSet<>();
+	private boolean stopped;
+
+	// seeds the engine runs, the seed of the race reproduces the seeds of the runs
+	private final SplittableRandom rand;
+
+	public static boolean[] optimize(Problem problem, int stateCount) {
+		// public wrapper using the default time budget
+		return optimize(problem, stateCount, DEFAULT_TIME_BUDGET);
+	}
+
+	public static boolean[] optimize(Problem problem, int stateCount, long timeBudget) {
+		return optimizeUntil(problem, stateCount, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudget));
+	}
+
+	public static boolean[] optimizeUntil(Problem problem, int stateCount, long deadline) {
+		if (System.nanoTime() >= deadline) {
+			// no time left (e.g. a component of a decomposition that waited for a free thread) -> a
+			// single hill climbing run still covers the order
+			return Optimizers.hillClimbing(problem);
+		}
+		// the state of a race is kept in its own object so multiple races can run at the same time
+		long seed = State.nextSeed();
+		OptimizerRunEvent event = Optimizers.startRun(NAME, problem, seed);
+		return Optimizers.finishRun(event, problem, new Portfolio(problem, stateCount, deadline, seed).race());
+	}
+
+	private Portfolio(Problem problem, int stateCount, long deadline, long seed) {
+		this.problem = problem;
+		this.rand = new SplittableRandom(seed);
+		this.stateCount = stateCount;
+		this.deadline = deadline;
+		this.upperBound = Loss.upperBound(problem);
+		this.traceRun = Trace.currentRun();
+
+		// start with the empty state so every engine run has something to compare to
+		bestState = new boolean[problem.psuCount()];
+		bestScore = Loss.score(problem, bestState);
+	}
+
+	private synchronized boolean[] race() {
+		// keep one engine run per core queued or running, every finished run queues the next one
+		for (int i = 0; i < threadCount; i++) {
+			submit();
+		}
+
+		try {
+			long remaining;
+			while (!stopped && (remaining = deadline - System.nanoTime()) > 0) {
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+		} catch (InterruptedException e) {
+			// the caller wants us to stop -> stop the engines and return the best state so far
+			Thread.currentThread().interrupt();
+		}
+		stop();
+
+		// the interrupted engines return their current state, wait until they reported it
+		boolean interrupted = false;
+		while (!running.isEmpty()) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return bestState;
+	}
+
+	private void submit() {
+		// called while holding the lock of the race
+		if (stopped || System.nanoTime() >= deadline) {
+			return;
+		}
+		// the runs of the engine draw their seeds from the seed of the task
+		final long seed = rand.nextLong();
+		pool.execute(new Runnable() {
+			public void run() {
+			        runEngine(seed);
+			}
+		});
+	}
+
+	private void runEngine(long seed) {
+		Thread thread = Thread.currentThread();
+		int engine;
+		long startTime;
+		long scoreBefore;
+		synchronized (this) {
+			// the task may have waited in the queue of the shared pool until the race was over
+			if (stopped || System.nanoTime() >= deadline) {
+				return;
+			}
+			running.add(thread);
+			engine = pickEngine();
+			startTime = System.nanoTime();
+			runningCount[engine]++;
+			runningStarts[engine] += startTime;
+			scoreBefore = bestScore;
+		}
+
+		boolean[] result = null;
+		State.setThreadSeed(seed);
+		try {
+			result = engines[engine].run(problem, stateCount);
+		} finally {
+			State.clearThreadSeed();
+			synchronized (this) {
+				long deltaTime = System.nanoTime() - startTime;
+				runningCount[engine]--;
+				runningStarts[engine] -= startTime;
+				usedTime[engine] += deltaTime;
+				if (result != null) {
+					report(engine, result, scoreBefore, deltaTime);
+				}
+
+				// the race only interrupts threads in the running set, so clearing the flag after
+				// leaving it keeps the interrupt from reaching the next task of the shared thread
+				running.remove(thread);
+				Thread.interrupted();
+				submit();
+				notifyAll();
+			}
+		}
+	}
+
+	private void stop() {
+		// called while holding the lock of the race, running engines return their current state
+		stopped = true;
+		for (Thread thread : running) {
+			thread.interrupt();
+		}
+		notifyAll();
+	}
+
+	private int pickEngine() {
+		// called while holding the lock of the race
+		double totalRate = 0;
+		for (int i = 0; i < rates.length; i++) {
+			totalRate += rates[i];
+		}
+
+		// choose the engine with the least used time relative to its CPU share, including the runs
+		// that are still running, so over the race the time of every engine follows its share and
+		// an engine that did not run yet is chosen first (on ties the engine with fewer running runs)
+		long now = System.nanoTime();
+		int best = 0;
+		double bestTime = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < engines.length; i++) {
+			long used = usedTime[i] + runningCount[i] * now - runningStarts[i];
+			double time = used / share(i, totalRate);
+			if (time < bestTime || (time == bestTime && runningCount[i] < runningCount[best])) {
+				best = i;
+				bestTime = time;
+			}
+		}
+		return best;
+	}
+
+	private double share(int engine, double totalRate) {
+		if (totalRate == 0) {
+			// nothing improved so far -> all engines get the same share
+			return 1.0 / rates.length;
+		}
+		// every engine gets the minimal share, the rest is distributed by improvement rate
+		return MIN_SHARE + (1 - MIN_SHARE * rates.length) * rates[engine] / totalRate;
+	}
+
+	private void report(int engine, boolean[] result, long scoreBefore, long deltaTime) {
+		// called while holding the lock of the race
+		long score = Loss.score(problem, result);
+
+		// update the smoothed improvement rate of the engine (improvement per millisecond)
+		long improvement = Math.max(score - scoreBefore, 0);
+		double rate = improvement / Math.max(deltaTime / 1e6, 1e-3);
+		rates[engine] = (1 - RATE_SMOOTHING) * rates[engine] + RATE_SMOOTHING * rate;
+		finishedRuns++;
+
+		if (bestScore < score) {
+			// the engine found a new global best state
+			bestState = result;
+			bestScore = score;
+			IncumbentEvent.emit(NAME, bestScore, finishedRuns);
+			if (Trace.isActive()) {
+				Coverage coverage = new Coverage(problem, result);
+				Trace.record(traceRun, finishedRuns, score, bestScore, coverage.psusUsed(), coverage.itemsCovered());
+			}
+
+			if (bestScore >= upperBound) {
+				// no state can be better than this one -> stop all engines
+				stop();
+			}
+		}
+	}
+
+}
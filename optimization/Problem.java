@@ -0,0 +1,163 @@
+package optimization;
+
+import java.util.HashMap;
+import java.util.Arrays;
+
+import frame.PSU;
+
+/*
+ *	The Problem class is an immutable, index based representation of a warehouse configuration
+ *	together with an order, prepared for fast evaluation during the optimization. Every distinct
+ *	ordered item gets an index and is stored with the number of times it was ordered. For every
+ *	PSU the indices of the ordered items it carries are stored and for every ordered item the PSUs
+ *	providing it. Items that were not ordered are not relevant for the optimization and are left
+ *	out. Optionally every PSU can have a cost (e.g. the distance it has to travel), otherwise
+ *	every PSU costs one unit so the total cost of a state is the number of PSUs it uses. Costs
+ *	whose exact score (see LexicographicObjective) does not fit into a long are rejected.
+ */
+
+public class Problem {
+
+	// for every PSU the indices of the ordered items it carries
+	private final int[][] psuItems;
+	// for every ordered item the indices of the PSUs carrying it
+	private final int[][] providers;
+	// how often every distinct item was ordered
+	private final int[] itemWeights;
+	// cost of every PSU, null if every PSU costs one unit
+	private final long[] costs;
+
+	private final int orderSize;
+	private final long totalCost;
+
+	// bit masks for batch scoring, built on first use and shared by all optimizers of the problem
+	private volatile BatchEvaluator evaluator;
+
+	public Problem(int[][] psuItems, int[] itemWeights, long[] costs) {
+		this.psuItems = psuItems;
+		this.itemWeights = itemWeights;
+		this.costs = costs;
+
+		// the order size counts duplicate items like the order file does
+		int size = 0;
+		for (int weight : itemWeights) {
+			size += weight;
+		}
+		orderSize = size;
+
+		long total = costs == null ? psuItems.length : 0;
+		try {
+			if (costs != null) {
+				for (long cost : costs) {
+					total = Math.addExact(total, cost);
+				}
+			}
+			// the best possible score covers every item, each weighted with the total cost plus one
+			Math.multiplyExact(orderSize, Math.addExact(total, 1));
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("The PSU costs are too large for the exact score of an order of "
+					+ orderSize + " items");
+		}
+		totalCost = total;
+
+		providers = invert(psuItems, itemWeights.length);
+	}
+
+	public static Problem of(PSU[] psus, int[] order) {
+		// assign an index to every distinct ordered item and count how often it was ordered
+		HashMap<Integer, Integer> itemIndices = new HashMap<>();
+		int[] weights = new int[order.length];
+		for (int itemId : order) {
+			Integer index = itemIndices.get(itemId);
+			if (index == null) {
+				index = itemIndices.size();
+				itemIndices.put(itemId, index);
+			}
+			weights[index]++;
+		}
+
+		// collect the ordered items of every PSU
+		int[][] psuItems = new int[psus.length][];
+		int[] buffer = new int[itemIndices.size()];
+		for (int i = 0; i < psus.length; i++) {
+			int count = 0;
+			for (Integer itemId : psus[i].getItems()) {
+				Integer index = itemIndices.get(itemId);
+				if (index != null) {
+					buffer[count++] = index;
+				}
+			}
+			psuItems[i] = Arrays.copyOf(buffer, count);
+		}
+		return new Problem(psuItems, Arrays.copyOf(weights, itemIndices.size()), null);
+	}
+
+	public Problem withCosts(long[] psuCosts) {
+		// same PSUs and order, but every PSU has its own cost
+		return new Problem(psuItems, itemWeights, psuCosts);
+	}
+
+	BatchEvaluator evaluator() {
+		// building the masks twice in a race is harmless, both evaluators are equal
+		BatchEvaluator batchEvaluator = evaluator;
+		if (batchEvaluator == null) {
+			batchEvaluator = new BatchEvaluator(this);
+			evaluator = batchEvaluator;
+		}
+		return batchEvaluator;
+	}
+
+	public int psuCount() {
+		return psuItems.length;
+	}
+
+	public int itemCount() {
+		return itemWeights.length;
+	}
+
+	public int orderSize() {
+		return orderSize;
+	}
+
+	public int[] items(int psu) {
+		return psuItems[psu];
+	}
+
+	public int[] providers(int item) {
+		return providers[item];
+	}
+
+	public int weight(int item) {
+		return itemWeights[item];
+	}
+
+	public long cost(int psu) {
+		return costs == null ? 1 : costs[psu];
+	}
+
+	public long totalCost() {
+		return totalCost;
+	}
+
+	private static int[][] invert(int[][] psuItems, int itemCount) {
+		// count the providers of every item first so the arrays can be allocated exactly
+		int[] counts = new int[itemCount];
+		for (int[] items : psuItems) {
+			for (int item : items) {
+				counts[item]++;
+			}
+		}
+		int[][] providers = new int[itemCount][];
+		for (int j = 0; j < itemCount; j++) {
+			providers[j] = new int[counts[j]];
+			counts[j] = 0;
+		}
+		for (int i = 0; i < psuItems.length; i++) {
+			for (int item : psuItems[i]) {
+				providers[item][counts[item]++] = i;
+			}
+		}
+		return providers;
+	}
+
+}
\ No newline at end of file
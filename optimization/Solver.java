@@ -0,0 +1,19 @@
+package optimization;
+
+/*
+ *	The Solver interface represents a configured optimizer which can be run on any problem, e.g.
+ *	local beam search with a fixed number of states. It allows to pass the optimizer selected by
+ *	the user to stages that run it on problems they create themselves, like the subproblems of
+ *	the Decomposition class. Optimizers that can start from a given state (e.g. the solution of a
+ *	similar order) override the second method, all others ignore the initial state.
+ */
+
+public interface Solver {
+
+	boolean[] solve(Problem problem);
+
+	default boolean[] solve(Problem problem, boolean[] initialState) {
+		return solve(problem);
+	}
+
+}
\ No newline at end of file
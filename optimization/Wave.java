@@ -0,0 +1,75 @@
+package optimization;
+
+import java.util.Arrays;
+
+/*
+ *	The Wave class plans a wave of orders which are released together. A PSU brought to the station
+ *	can serve all orders of the wave, so the orders are combined into a single order (an item that
+ *	is ordered by several orders is ordered several times) and any optimizer minimizes the number of
+ *	distinct PSUs needed for the whole wave. Afterwards every order is assigned the PSUs of the
+ *	wave's selection it picks from: the selected PSU providing the most items of the order that are
+ *	still missing is assigned until the order is complete or no selected PSU provides more of it.
+ */
+
+public class Wave {
+
+	public static int[] combine(int[][] orders) {
+		// concatenate the orders of the wave into a single order
+		int size = 0;
+		for (int[] order : orders) {
+			size += order.length;
+		}
+		int[] combined = new int[size];
+		int position = 0;
+		for (int[] order : orders) {
+			System.arraycopy(order, 0, combined, position, order.length);
+			position += order.length;
+		}
+		return combined;
+	}
+
+	public static int[] assign(Problem order, boolean[] selection) {
+		// ordered items of this order that are not provided by an assigned PSU yet
+		boolean[] missing = new boolean[order.itemCount()];
+		Arrays.fill(missing, true);
+		boolean[] assigned = new boolean[order.psuCount()];
+		int[] result = new int[order.psuCount()];
+		int count = 0;
+
+		while (true) {
+			// find the selected PSU that provides the most missing items
+			int bestPSU = -1;
+			int bestGain = 0;
+			for (int psu = 0; psu < order.psuCount(); psu++) {
+				if (!selection[psu] || assigned[psu]) {
+					continue;
+				}
+				int gain = 0;
+				for (int item : order.items(psu)) {
+					if (missing[item]) {
+						gain += order.weight(item);
+					}
+				}
+				if (bestGain < gain) {
+					bestPSU = psu;
+					bestGain = gain;
+				}
+			}
+
+			if (bestPSU == -1) {
+				// the order is complete or the selection does not provide the rest
+				break;
+			}
+			assigned[bestPSU] = true;
+			result[count++] = bestPSU;
+			for (int item : order.items(bestPSU)) {
+				missing[item] = false;
+			}
+		}
+
+		int[] psus = Arrays.copyOf(result, count);
+		Arrays.sort(psus);
+		return psus;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.IOException;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ *	The LoadGenerator class measures the latency and throughput of the Service class. It replays
+ *	order files against the /optimize endpoint from several client threads at the same time, each
+ *	thread sends its next request as soon as the previous one was answered. Rejected requests (the
+ *	queue of the service was full) are counted and retried after a short pause. At the end the
+ *	throughput and the exact 50th and 99th percentile and maximum of the latencies are reported.
+ *
+ *	Usage: java service.LoadGenerator -order file [-order file ...] [-url url] [-requests n]
+ *	       [-clients n]
+ */
+
+public class LoadGenerator {
+
+	private static final String DEFAULT_URL = "http://localhost:8080/optimize";
+	private static final int DEFAULT_REQUESTS = 1000;
+	private static final int DEFAULT_CLIENTS = 8;
+	// pause before retrying a rejected request in milliseconds
+	private static final long RETRY_DELAY = 10;
+
+	private final String url;
+	private final List<String> orders;
+	private final int requestCount;
+	private final int clientCount;
+
+	// index of the next request to send, shared by all clients
+	private final AtomicInteger nextRequest = new AtomicInteger();
+	// latency of every request in nanoseconds, -1 if it failed
+	private final long[] latencies;
+	private final AtomicInteger rejections = new AtomicInteger();
+
+	public static void main(String[] args) {
+		String url = DEFAULT_URL;
+		int requestCount = DEFAULT_REQUESTS;
+		int clientCount = DEFAULT_CLIENTS;
+		List<String> orders = new ArrayList<>();
+
+		try {
+			// parse the command line arguments
+			for (int i = 0; i + 1 < args.length; i += 2) {
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-order":
+						BufferedReader reader = new BufferedReader(new FileReader(value));
+						orders.add(reader.readLine());
+						reader.close();
+						break;
+					case "-url":
+						url = value;
+						break;
+					case "-requests":
+						requestCount = Integer.parseInt(value);
+						break;
+					case "-clients":
+						clientCount = Integer.parseInt(value);
+						break;
+					default:
+						System.err.println("Unknown argument " + args[i]);
+						return;
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid number: " + e.getMessage());
+			return;
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			return;
+		}
+
+		if (orders.isEmpty()) {
+			System.err.println("Please provide at least one order file with -order");
+			return;
+		}
+
+		new LoadGenerator(url, orders, requestCount, clientCount).run();
+	}
+
+	public LoadGenerator(String url, List<String> orders, int requestCount, int clientCount) {
+		this.url = url;
+		this.orders = orders;
+		this.requestCount = requestCount;
+		this.clientCount = clientCount;
+		this.latencies = new long[requestCount];
+	}
+
+	public void run() {
+		Thread[] clients = new Thread[clientCount];
+		long startTime = System.nanoTime();
+		for (int i = 0; i < clientCount; i++) {
+			clients[i] = new Thread(new Runnable() {
+				public void run() {
+				        sendRequests();
+				}
+			});
+			clients[i].start();
+		}
+		try {
+			for (Thread client : clients) {
+				client.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+
+		// exact percentiles of the successful requests
+		long[] sorted = new long[requestCount];
+		int successes = 0;
+		for (long latency : latencies) {
+			if (latency >= 0) {
+				sorted[successes++] = latency;
+			}
+		}
+		sorted = Arrays.copyOf(sorted, successes);
+		Arrays.sort(sorted);
+		int failures = requestCount - successes;
+		System.out.println(String.format(Locale.ROOT, "%d requests from %d clients in %.2f s, %d failed, %d rejections retried",
+				requestCount, clientCount, seconds, failures, rejections.get()));
+		if (sorted.length > 0) {
+			System.out.println(String.format(Locale.ROOT, "throughput %.1f requests/s", sorted.length / seconds));
+			System.out.println(String.format(Locale.ROOT, "latency p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+					percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6, sorted[sorted.length - 1] / 1e6));
+		}
+	}
+
+	private void sendRequests() {
+		int index;
+		while ((index = nextRequest.getAndIncrement()) < requestCount) {
+			// replay the order files round robin
+			String order = orders.get(index % orders.size());
+			long startTime = System.nanoTime();
+			latencies[index] = -1;
+			try {
+				int status;
+				while ((status = post(order)) == 503) {
+					// the service applies backpressure -> wait and retry, the latency includes the wait
+					rejections.incrementAndGet();
+					Thread.sleep(RETRY_DELAY);
+				}
+				if (status == 200) {
+					latencies[index] = System.nanoTime() - startTime;
+				}
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private int post(String order) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		OutputStream output = connection.getOutputStream();
+		output.write(order.getBytes(StandardCharsets.UTF_8));
+		output.close();
+
+		int status = connection.getResponseCode();
+		// read the whole response so the connection can be reused
+		InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+		if (input != null) {
+			byte[] buffer = new byte[4096];
+			while (input.read(buffer) != -1) {
+				// discard
+			}
+			input.close();
+		}
+		return status;
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		// nearest rank percentile
+		int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+
+}
\ No newline at end of file
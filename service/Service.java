@@ -0,0 +1,589 @@
+package service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import frame.PSU;
+
+import optimization.Optimizers;
+import optimization.Parameters;
+import optimization.Problem;
+import optimization.Solver;
+
+import util.MinHashIndex;
+import util.Parser;
+
+import monitoring.Histogram;
+
+/*
+ *	The Service class is a long running order optimization service. It loads the warehouse once and
+ *	accepts orders over a local HTTP endpoint: a POST to /optimize with an order in the format of an
+ *	order file returns the selected PSUs as JSON together with the latency of the request. Requests
+ *	are put into a bounded queue, if it is full the request is rejected with status 503 so clients
+ *	back off instead of piling up. The HTTP threads only read and queue the requests, the response
+ *	is sent by the thread that completes the request, so waiting requests are only held by the
+ *	queue and its capacity also limits the connections waiting to be accepted. A dispatcher thread
+ *	takes the queued requests in micro batches: all orders of a batch are parsed together,
+ *	identical orders are solved only once and orders found in the cache of recent results are
+ *	answered right away. The remaining orders are solved in parallel and every request is answered
+ *	as soon as its own order is solved, so the dispatcher never waits for the slowest order of a
+ *	batch and takes the next batch while the workers are busy. The number of orders being solved
+ *	at the same time is bounded, so the dispatcher stops taking requests when the workers fall
+ *	behind and the queue fills up again. Orders that are not in the cache start from the solution
+ *	of the most similar recently solved order if there is one (see MinHashIndex), which is close
+ *	to a good solution for near duplicates. The problems are built from an index of the PSUs
+ *	providing every item which is built once at startup, so building a problem only touches the
+ *	providers of the ordered items. With a cost file (see Parser) the total cost of the selected
+ *	PSUs is minimized instead of their number. Invalid orders are answered with status 400,
+ *	failures of the solver with 500 and request bodies larger than MAX_BODY_SIZE with 413. The
+ *	latency of a request is measured from the moment it is accepted. GET /metrics returns request
+ *	counts and latency percentiles.
+ *
+ *	Usage: java service.Service -warehouse file [-port n] [-queue n] [-batch n] [-cache n]
+ *	       [-index n] [-costs file] [-optimizer hc|sa|ils]
+ */
+
+public class Service {
+
+	private static final int DEFAULT_PORT = 8080;
+	private static final int DEFAULT_QUEUE_CAPACITY = 256;
+	private static final int DEFAULT_BATCH_SIZE = 16;
+	private static final int DEFAULT_CACHE_SIZE = 1024;
+	private static final int DEFAULT_INDEX_SIZE = 4096;
+	// time the dispatcher waits for more requests after the first one of a batch, in milliseconds
+	private static final long BATCH_LINGER = 2;
+	// threads reading HTTP requests, they only read the order and queue it, the response is sent
+	// when the order is solved, so they never wait for a solve
+	private static final int HANDLER_THREADS = 4;
+	// largest accepted request body in bytes, an order file line is far smaller
+	private static final int MAX_BODY_SIZE = 1 << 20;
+	// orders being solved at the same time per worker thread, the rest waits in the request queue
+	private static final int SOLVES_PER_WORKER = 2;
+
+	private static final int[] NO_ITEMS = new int[0];
+
+	// a queued order and the future its result is delivered to
+	private static class Request {
+		final String body;
+		// time the request was accepted, the latency and queue time are measured from here
+		final long arrivalTime;
+		final CompletableFuture<String> response = new CompletableFuture<>();
+
+		Request(String body, long arrivalTime) {
+			this.body = body;
+			this.arrivalTime = arrivalTime;
+		}
+	}
+
+	// an order that can not be solved because of the request, answered with status 400 instead of 500
+	private static class InvalidOrderException extends IllegalArgumentException {
+		InvalidOrderException(String message) {
+			super(message);
+		}
+	}
+
+	private final PSU[] psus;
+	// cost of every PSU, null if every PSU costs one unit
+	private final long[] costs;
+	// for every item ID the PSUs carrying it
+	private final HashMap<Integer, int[]> providers = new HashMap<>();
+	private final Solver solver;
+	private final int batchSize;
+
+	private final BlockingQueue<Request> queue;
+	// connections waiting to be accepted, as many as requests fit into the queue
+	private final int backlog;
+	private final int workerCount = Runtime.getRuntime().availableProcessors();
+	private final ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+	// bounds the orders handed to the workers so requests queue up (and are rejected) in the queue
+	private final Semaphore solving = new Semaphore(workerCount * SOLVES_PER_WORKER);
+
+	// recently solved orders (sorted item IDs) and their selected PSUs, least recently used first
+	private final Map<String, int[]> cache;
+	// recently solved orders by similarity, their solutions are the initial states of similar orders
+	private final MinHashIndex index;
+
+	// metrics of the service
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder warmStarts = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final Histogram latency = new Histogram();
+	private final Histogram queueLatency = new Histogram();
+	private final Histogram batchSizes = new Histogram();
+
+	public static void main(String[] args) {
+		String warehousePath = null;
+		int port = DEFAULT_PORT;
+		int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+		int batchSize = DEFAULT_BATCH_SIZE;
+		int cacheSize = DEFAULT_CACHE_SIZE;
+		int indexSize = DEFAULT_INDEX_SIZE;
+		String costPath = null;
+		String optimizer = "ils";
+
+		try {
+			// parse the command line arguments
+			for (int i = 0; i + 1 < args.length; i += 2) {
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-warehouse":
+						warehousePath = value;
+						break;
+					case "-port":
+						port = Integer.parseInt(value);
+						break;
+					case "-queue":
+						queueCapacity = Integer.parseInt(value);
+						break;
+					case "-batch":
+						batchSize = Integer.parseInt(value);
+						break;
+					case "-cache":
+						cacheSize = Integer.parseInt(value);
+						break;
+					case "-index":
+						indexSize = Integer.parseInt(value);
+						break;
+					case "-costs":
+						costPath = value;
+						break;
+					case "-optimizer":
+						optimizer = value;
+						break;
+					default:
+						System.err.println("Unknown argument " + args[i]);
+						return;
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid number: " + e.getMessage());
+			return;
+		}
+
+		if (warehousePath == null) {
+			System.err.println("Please provide a warehouse file with -warehouse");
+			return;
+		}
+		PSU[] psus = Parser.parseWarehouse(warehousePath);
+		if (psus == null) {
+			System.err.println("Could not parse warehouse file " + warehousePath);
+			return;
+		}
+		long[] costs = null;
+		if (costPath != null) {
+			costs = Parser.parseCosts(costPath);
+			if (costs == null || costs.length != psus.length) {
+				System.err.println("Could not parse cost file " + costPath + " (one non-negative cost per PSU)");
+				return;
+			}
+		}
+		Solver solver = solver(optimizer);
+		if (solver == null) {
+			System.err.println("Unknown optimizer " + optimizer + " (hc, sa or ils)");
+			return;
+		}
+
+		try {
+			new Service(psus, costs, solver, queueCapacity, batchSize, cacheSize, indexSize).start(port);
+			System.out.println("Serving " + psus.length + " PSUs on http://localhost:" + port + "/optimize");
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	private static Solver solver(String name) {
+		switch (name) {
+			case "hc":
+				return new Solver() {
+					public boolean[] solve(Problem problem) {
+					        return solve(problem, null);
+					}
+
+					public boolean[] solve(Problem problem, boolean[] initialState) {
+					        return Optimizers.hillClimbing(problem, initialState);
+					}
+				};
+			case "sa":
+				return new Solver() {
+					public boolean[] solve(Problem problem) {
+					        return solve(problem, null);
+					}
+
+					public boolean[] solve(Problem problem, boolean[] initialState) {
+					        return Optimizers.simulatedAnnealing(problem, Parameters.forProblem(problem), initialState);
+					}
+				};
+			case "ils":
+				return new Solver() {
+					public boolean[] solve(Problem problem) {
+					        return solve(problem, null);
+					}
+
+					public boolean[] solve(Problem problem, boolean[] initialState) {
+					        return Optimizers.iteratedLocalSearch(problem, Parameters.forProblem(problem), initialState);
+					}
+				};
+			default:
+				return null;
+		}
+	}
+
+	public Service(PSU[] psus, long[] costs, Solver solver, int queueCapacity, int batchSize, final int cacheSize,
+			int indexSize) {
+		this.psus = psus;
+		this.costs = costs;
+		this.solver = solver;
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.backlog = queueCapacity;
+		this.cache = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+			        return size() > cacheSize;
+			}
+		};
+		this.index = new MinHashIndex(indexSize);
+
+		// index the PSUs carrying every item once, orders only look up their items
+		HashMap<Integer, List<Integer>> lists = new HashMap<>();
+		for (int i = 0; i < psus.length; i++) {
+			for (Integer item : psus[i].getItems()) {
+				if (!lists.containsKey(item)) {
+					lists.put(item, new ArrayList<Integer>());
+				}
+				lists.get(item).add(i);
+			}
+		}
+		for (Map.Entry<Integer, List<Integer>> entry : lists.entrySet()) {
+			int[] list = new int[entry.getValue().size()];
+			for (int i = 0; i < list.length; i++) {
+				list[i] = entry.getValue().get(i);
+			}
+			providers.put(entry.getKey(), list);
+		}
+	}
+
+	public void start(int port) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), backlog);
+		server.createContext("/optimize", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+			        handleOptimize(exchange);
+			}
+		});
+		server.createContext("/metrics", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+			        respond(exchange, 200, metrics());
+			}
+		});
+		server.setExecutor(Executors.newFixedThreadPool(HANDLER_THREADS));
+		server.start();
+
+		Thread dispatcher = new Thread(new Runnable() {
+			public void run() {
+			        dispatch();
+			}
+		}, "dispatcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	// ----------------- request handling ----------------- \\
+
+	private void handleOptimize(final HttpExchange exchange) throws IOException {
+		final long arrivalTime = System.nanoTime();
+		if (!exchange.getRequestMethod().equals("POST")) {
+			respond(exchange, 405, "{\"error\": \"use POST with an order in the request body\"}");
+			return;
+		}
+		requests.increment();
+
+		String body = readBody(exchange.getRequestBody());
+		if (body == null) {
+			failed.increment();
+			respond(exchange, 413, "{\"error\": \"request body larger than " + MAX_BODY_SIZE + " bytes\"}");
+			return;
+		}
+		Request request = new Request(body, arrivalTime);
+		if (!queue.offer(request)) {
+			// the queue is full -> tell the client to back off instead of waiting
+			rejected.increment();
+			exchange.getResponseHeaders().set("Retry-After", "1");
+			respond(exchange, 503, "{\"error\": \"queue full\"}");
+			return;
+		}
+
+		// the handler thread returns right away, the response is sent by the thread completing the
+		// request, so only the queue limits the waiting requests and full queues are rejected
+		request.response.whenComplete(new BiConsumer<String, Throwable>() {
+			public void accept(String response, Throwable error) {
+			        try {
+			                if (error == null) {
+			                        respond(exchange, 200, response);
+			                        latency.record(System.nanoTime() - arrivalTime);
+			                } else {
+			                        // invalid orders are the client's fault, everything else is ours
+			                        failed.increment();
+			                        boolean invalid = error instanceof InvalidOrderException;
+			                        respond(exchange, invalid ? 400 : 500,
+			                                        "{\"error\": " + quote(invalid ? error.getMessage() : error.toString()) + "}");
+			                }
+			        } catch (IOException e) {
+			                // the client closed the connection, nobody is left to answer
+			                exchange.close();
+			        }
+			}
+		});
+	}
+
+	private void dispatch() {
+		List<Request> batch = new ArrayList<>();
+		while (true) {
+			try {
+				// wait for the first request, then give concurrent requests a moment to join the batch
+				batch.add(queue.take());
+				long lingerEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_LINGER);
+				while (batch.size() < batchSize) {
+					Request next = queue.poll(lingerEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			try {
+				solveBatch(batch);
+			} catch (InterruptedException e) {
+				return;
+			}
+			batch.clear();
+		}
+	}
+
+	private void solveBatch(List<Request> batch) throws InterruptedException {
+		batches.increment();
+		batchSizes.record(batch.size());
+		final long startTime = System.nanoTime();
+		// the dispatcher reuses the batch list while the orders are still being solved
+		final int size = batch.size();
+
+		// parse all orders, identical orders of the batch share one entry
+		LinkedHashMap<String, List<Request>> orders = new LinkedHashMap<>();
+		HashMap<String, int[]> orderItems = new HashMap<>();
+		for (Request request : batch) {
+			queueLatency.record(startTime - request.arrivalTime);
+			String line = request.body.trim();
+			int[] order = line.isEmpty() ? null : PSU.indices(line.split("\\s+"));
+			if (order == null) {
+				request.response.completeExceptionally(new InvalidOrderException("empty order or unknown item"));
+				continue;
+			}
+			int[] key = order.clone();
+			Arrays.sort(key);
+			String orderKey = Arrays.toString(key);
+			if (!orders.containsKey(orderKey)) {
+				orders.put(orderKey, new ArrayList<Request>());
+				orderItems.put(orderKey, order);
+			}
+			orders.get(orderKey).add(request);
+		}
+
+		// answer cached orders right away and solve the remaining orders in parallel, every order
+		// answers its requests when it is solved instead of waiting for the whole batch
+		for (Map.Entry<String, List<Request>> entry : orders.entrySet()) {
+			final String orderKey = entry.getKey();
+			final List<Request> waiting = entry.getValue();
+			final int[] order = orderItems.get(orderKey);
+			final int[] cached;
+			synchronized (cache) {
+				cached = cache.get(orderKey);
+			}
+			if (cached != null) {
+				cacheHits.add(waiting.size());
+				complete(waiting, cached, order.length, size, startTime);
+				continue;
+			}
+
+			// wait until a worker can take the order, not until the previous orders are solved
+			solving.acquire();
+			CompletableFuture.supplyAsync(new Supplier<int[]>() {
+				public int[] get() {
+				        return solve(order);
+				}
+			}, workers).whenComplete(new BiConsumer<int[], Throwable>() {
+				public void accept(int[] selected, Throwable error) {
+				        solving.release();
+				        if (error != null) {
+				                // report the exception of the solver, not the wrapper of the future
+				                Throwable cause = error instanceof CompletionException && error.getCause() != null
+				                                ? error.getCause() : error;
+				                for (Request request : waiting) {
+				                        request.response.completeExceptionally(cause);
+				                }
+				                return;
+				        }
+				        synchronized (cache) {
+				                cache.put(orderKey, selected);
+				        }
+				        complete(waiting, selected, order.length, size, startTime);
+				}
+			});
+		}
+	}
+
+	private void complete(List<Request> waiting, int[] selected, int orderSize, int batchSize, long startTime) {
+		// the solve time of an order counts from the start of its batch
+		long solveTime = System.nanoTime() - startTime;
+		for (Request request : waiting) {
+			request.response.complete(response(selected, orderSize, batchSize, startTime - request.arrivalTime,
+					solveTime));
+		}
+	}
+
+	private int[] solve(int[] order) {
+		// start from the solution of the most similar recently solved order if there is one
+		boolean[] initialState = null;
+		int[] similar = index.nearest(order);
+		if (similar != null) {
+			warmStarts.increment();
+			initialState = new boolean[psus.length];
+			for (int psu : similar) {
+				initialState[psu] = true;
+			}
+		}
+
+		boolean[] state = solver.solve(problem(order), initialState);
+		int count = 0;
+		int[] selected = new int[psus.length];
+		for (int i = 0; i < state.length; i++) {
+			if (state[i]) {
+				selected[count++] = i;
+			}
+		}
+		selected = Arrays.copyOf(selected, count);
+		index.put(order, selected);
+		return selected;
+	}
+
+	private Problem problem(int[] order) {
+		// same problem as Problem.of but only the providers of the ordered items are visited
+		HashMap<Integer, Integer> itemIndices = new HashMap<>();
+		int[] weights = new int[order.length];
+		for (int itemId : order) {
+			Integer index = itemIndices.get(itemId);
+			if (index == null) {
+				index = itemIndices.size();
+				itemIndices.put(itemId, index);
+			}
+			weights[index]++;
+		}
+
+		int[] counts = new int[psus.length];
+		for (Integer itemId : itemIndices.keySet()) {
+			for (int psu : providers.getOrDefault(itemId, NO_ITEMS)) {
+				counts[psu]++;
+			}
+		}
+		int[][] psuItems = new int[psus.length][];
+		for (int i = 0; i < psus.length; i++) {
+			psuItems[i] = counts[i] == 0 ? NO_ITEMS : new int[counts[i]];
+			counts[i] = 0;
+		}
+		for (Map.Entry<Integer, Integer> entry : itemIndices.entrySet()) {
+			for (int psu : providers.getOrDefault(entry.getKey(), NO_ITEMS)) {
+				psuItems[psu][counts[psu]++] = entry.getValue();
+			}
+		}
+		try {
+			return new Problem(psuItems, Arrays.copyOf(weights, itemIndices.size()), costs);
+		} catch (IllegalArgumentException e) {
+			// the order is too large for the exact score with the PSU costs of the service
+			throw new InvalidOrderException(e.getMessage());
+		}
+	}
+
+	// ----------------- responses ----------------- \\
+
+	private String response(int[] selected, int orderSize, int batchSize, long queueTime, long solveTime) {
+		StringBuilder psuList = new StringBuilder();
+		for (int i = 0; i < selected.length; i++) {
+			psuList.append(i == 0 ? "" : ", ").append(selected[i]);
+		}
+		return String.format(Locale.ROOT, "{\"psus\": [%s], \"orderSize\": %d, \"batchSize\": %d, "
+				+ "\"queueMillis\": %.3f, \"solveMillis\": %.3f}",
+				psuList, orderSize, batchSize, queueTime / 1e6, solveTime / 1e6);
+	}
+
+	private String metrics() {
+		return String.format(Locale.ROOT, "{\"requests\": %d, \"rejected\": %d, \"failed\": %d, \"cacheHits\": %d, "
+				+ "\"warmStarts\": %d, \"batches\": %d, \"averageBatchSize\": %.2f, \"queued\": %d, "
+				+ "\"latencyMillis\": {\"p50\": %.3f, \"p99\": %.3f, \"max\": %.3f}, "
+				+ "\"queueMillis\": {\"p50\": %.3f, \"p99\": %.3f}}",
+				requests.sum(), rejected.sum(), failed.sum(), cacheHits.sum(), warmStarts.sum(), batches.sum(),
+				batchSizes.count() == 0 ? 0 : (double) batchSizes.sum() / batchSizes.count(), queue.size(),
+				latency.percentile(50) / 1e6, latency.percentile(99) / 1e6, latency.max() / 1e6,
+				queueLatency.percentile(50) / 1e6, queueLatency.percentile(99) / 1e6);
+	}
+
+	private static String readBody(InputStream input) throws IOException {
+		// null if the body is larger than MAX_BODY_SIZE, the rest of it is not read
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			if (body.size() + read > MAX_BODY_SIZE) {
+				input.close();
+				return null;
+			}
+			body.write(buffer, 0, read);
+		}
+		input.close();
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream output = exchange.getResponseBody();
+		output.write(bytes);
+		output.close();
+	}
+
+	private static String quote(String value) {
+		return "\"" + String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+}
\ No newline at end of file
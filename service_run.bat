@@ -0,0 +1,3 @@
+@dir /b /a:-d /s | findstr /r /e /c:"\.java" | findstr /v /c:"\jmh\" > .javafiles
+@javac @.javafiles -Xlint:unchecked
+@java service.Service %*
\ No newline at end of file
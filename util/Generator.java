@@ -0,0 +1,323 @@
+package util;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ *	The Generator class creates synthetic warehouse and order files for scale testing in the same
+ *	format the Parser class reads. Generation is seeded, so the same parameters always produce the
+ *	same files. Items are drawn with a Zipf distributed popularity, so few items are carried by
+ *	many PSUs and ordered often while most items are rare. To control the overlap structure the
+ *	items can be split into clusters where every PSU draws most of its items from one home cluster.
+ *	Optionally a known optimal cover of the first order can be planted: the ordered items are split
+ *	evenly among a number of PSUs and no other PSU carries more ordered items than one of those,
+ *	so no cover with fewer PSUs exists.
+ *
+ *	Usage: java util.Generator -out prefix [-seed n] [-psus n] [-items n] [-itemsPerPsu min:max]
+ *	       [-zipf exponent] [-clusters n] [-locality probability] [-orderSize n] [-orders n] [-plant n]
+ */
+
+public class Generator {
+
+	// default parameters, roughly the shape of problem1.txt
+	private long seed = 1;
+	private int psuCount = 1000;
+	private int itemCount = 500;
+	private int minItemsPerPsu = 5;
+	private int maxItemsPerPsu = 15;
+	private double zipfExponent = 1.0;
+	private int clusterCount = 1;
+	private double locality = 0.0;
+	private int orderSize = 20;
+	private int orderCount = 1;
+	private int plantedCoverSize = 0;
+
+	// generated data, item names are referenced by their index
+	private Random rand;
+	private double[] popularity;
+	private int[][] psus;
+	private int[][] orders;
+	private int[] plantedCover;
+
+	public static void main(String[] args) {
+		Generator generator = new Generator();
+		String prefix = null;
+
+		try {
+			// parse the command line arguments
+			for (int i = 0; i + 1 < args.length; i += 2) {
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-out":
+						prefix = value;
+						break;
+					case "-seed":
+						generator.setSeed(Long.parseLong(value));
+						break;
+					case "-psus":
+						generator.setPsuCount(Integer.parseInt(value));
+						break;
+					case "-items":
+						generator.setItemCount(Integer.parseInt(value));
+						break;
+					case "-itemsPerPsu":
+						String[] range = value.split(":");
+						generator.setItemsPerPsu(Integer.parseInt(range[0]), Integer.parseInt(range[range.length - 1]));
+						break;
+					case "-zipf":
+						generator.setZipfExponent(Double.parseDouble(value));
+						break;
+					case "-clusters":
+						generator.setClusters(Integer.parseInt(value), generator.locality);
+						break;
+					case "-locality":
+						generator.setClusters(generator.clusterCount, Double.parseDouble(value));
+						break;
+					case "-orderSize":
+						generator.setOrderSize(Integer.parseInt(value));
+						break;
+					case "-orders":
+						generator.setOrderCount(Integer.parseInt(value));
+						break;
+					case "-plant":
+						generator.setPlantedCoverSize(Integer.parseInt(value));
+						break;
+					default:
+						System.err.println("Unknown argument " + args[i]);
+						return;
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid number: " + e.getMessage());
+			return;
+		}
+
+		if (prefix == null) {
+			System.err.println("Please provide an output prefix with -out");
+			return;
+		}
+
+		try {
+			generator.generate();
+			generator.write(prefix);
+		} catch (IllegalArgumentException | IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	// ----------------- parameters ----------------- \\
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public void setPsuCount(int psuCount) {
+		this.psuCount = psuCount;
+	}
+
+	public void setItemCount(int itemCount) {
+		this.itemCount = itemCount;
+	}
+
+	public void setItemsPerPsu(int min, int max) {
+		this.minItemsPerPsu = min;
+		this.maxItemsPerPsu = max;
+	}
+
+	public void setZipfExponent(double zipfExponent) {
+		// 0 means uniform popularity, larger values concentrate on few popular items
+		this.zipfExponent = zipfExponent;
+	}
+
+	public void setClusters(int clusterCount, double locality) {
+		// locality is the probability that an item of a PSU comes from its home cluster
+		this.clusterCount = clusterCount;
+		this.locality = locality;
+	}
+
+	public void setOrderSize(int orderSize) {
+		this.orderSize = orderSize;
+	}
+
+	public void setOrderCount(int orderCount) {
+		this.orderCount = orderCount;
+	}
+
+	public void setPlantedCoverSize(int plantedCoverSize) {
+		// 0 disables planting a cover
+		this.plantedCoverSize = plantedCoverSize;
+	}
+
+	// ----------------- generation ----------------- \\
+
+	public void generate() {
+		checkParameters();
+		rand = new Random(seed);
+
+		// item i has a popularity proportional to 1 / (i + 1)^s, stored as a cumulative distribution
+		popularity = new double[itemCount];
+		double total = 0;
+		for (int i = 0; i < itemCount; i++) {
+			total += 1 / Math.pow(i + 1, zipfExponent);
+			popularity[i] = total;
+		}
+
+		// the orders are drawn first so the planted cover can be built for the first order
+		orders = new int[orderCount][];
+		for (int i = 0; i < orderCount; i++) {
+			orders[i] = distinctItems(orderSize, -1);
+		}
+
+		psus = new int[psuCount][];
+		int planted = plantedCoverSize > 0 ? plantedCoverSize : 0;
+		plantedCover = new int[planted];
+		int[] positions = randomPermutation(psuCount);
+		for (int i = 0; i < planted; i++) {
+			// the planted PSUs carry an equal share of the first order and nothing else
+			plantedCover[i] = positions[i];
+			int share = orderSize / planted;
+			psus[positions[i]] = Arrays.copyOfRange(orders[0], i * share, (i + 1) * share);
+		}
+		Arrays.sort(plantedCover);
+
+		// every other PSU draws items from its home cluster and the whole catalog
+		int maxOrderedItems = planted > 0 ? orderSize / planted : Integer.MAX_VALUE;
+		for (int i = planted; i < psuCount; i++) {
+			int count = minItemsPerPsu + rand.nextInt(maxItemsPerPsu - minItemsPerPsu + 1);
+			int[] items = distinctItems(count, rand.nextInt(clusterCount));
+			psus[positions[i]] = planted > 0 ? limitOrderedItems(items, maxOrderedItems) : items;
+		}
+	}
+
+	public void write(String prefix) throws IOException {
+		// warehouse file: all item names, a blank line, then one line per PSU
+		PrintWriter writer = new PrintWriter(new FileWriter(prefix + "_warehouse.txt"));
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < itemCount; i++) {
+			line.append(i == 0 ? "" : " ").append(itemName(i));
+		}
+		writer.println(line);
+		writer.println();
+		for (int[] items : psus) {
+			writer.println(itemNames(items));
+		}
+		writer.close();
+
+		// order files: one line with the ordered item names
+		for (int i = 0; i < orders.length; i++) {
+			writer = new PrintWriter(new FileWriter(prefix + "_order" + (i + 1) + ".txt"));
+			writer.println(itemNames(orders[i]));
+			writer.close();
+		}
+
+		if (plantedCover.length > 0) {
+			// cover file: the PSU identifiers of the planted optimal cover of the first order
+			writer = new PrintWriter(new FileWriter(prefix + "_cover.txt"));
+			line = new StringBuilder();
+			for (int i = 0; i < plantedCover.length; i++) {
+				line.append(i == 0 ? "" : " ").append(plantedCover[i]);
+			}
+			writer.println(line);
+			writer.close();
+		}
+	}
+
+	private void checkParameters() {
+		if (psuCount < 1 || itemCount < 1 || orderSize < 1 || orderCount < 1) {
+			throw new IllegalArgumentException("PSU count, item count, order size and order count must be positive");
+		}
+		if (minItemsPerPsu < 1 || maxItemsPerPsu < minItemsPerPsu || maxItemsPerPsu > itemCount) {
+			throw new IllegalArgumentException("Items per PSU must be a range between 1 and the item count");
+		}
+		if (orderSize > itemCount) {
+			throw new IllegalArgumentException("The order size can not be larger than the item count");
+		}
+		if (clusterCount < 1 || clusterCount > itemCount) {
+			throw new IllegalArgumentException("The cluster count must be between 1 and the item count");
+		}
+		if (locality >= 1 && maxItemsPerPsu > itemCount / clusterCount) {
+			throw new IllegalArgumentException("With locality 1 a PSU can not carry more items than a cluster has");
+		}
+		if (plantedCoverSize > 0 && (plantedCoverSize > psuCount || orderSize % plantedCoverSize != 0)) {
+			throw new IllegalArgumentException("The planted cover size must divide the order size");
+		}
+	}
+
+	private int[] distinctItems(int count, int cluster) {
+		int[] items = new int[count];
+		boolean[] taken = new boolean[itemCount];
+		// draw items until enough distinct ones were found
+		for (int found = 0; found < count;) {
+			int item;
+			if (cluster >= 0 && rand.nextDouble() < locality) {
+				// uniform item from the home cluster (clusters are interleaved over the popularity ranks)
+				int clusterSize = (itemCount - cluster + clusterCount - 1) / clusterCount;
+				item = cluster + rand.nextInt(clusterSize) * clusterCount;
+			} else {
+				item = zipfItem();
+			}
+			if (!taken[item]) {
+				taken[item] = true;
+				items[found++] = item;
+			}
+		}
+		return items;
+	}
+
+	private int zipfItem() {
+		// inverse transform sampling with a binary search in the cumulative popularity
+		double value = rand.nextDouble() * popularity[itemCount - 1];
+		int index = Arrays.binarySearch(popularity, value);
+		return Math.min(index >= 0 ? index : -index - 1, itemCount - 1);
+	}
+
+	private int[] limitOrderedItems(int[] items, int maxOrderedItems) {
+		boolean[] ordered = new boolean[itemCount];
+		for (int item : orders[0]) {
+			ordered[item] = true;
+		}
+
+		// drop ordered items above the limit so the planted cover stays optimal
+		int[] result = new int[items.length];
+		int count = 0;
+		int orderedCount = 0;
+		for (int item : items) {
+			if (!ordered[item] || orderedCount++ < maxOrderedItems) {
+				result[count++] = item;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	private int[] randomPermutation(int size) {
+		int[] permutation = new int[size];
+		for (int i = 0; i < size; i++) {
+			permutation[i] = i;
+		}
+		// Fisher-Yates shuffle
+		for (int i = size - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			int swap = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = swap;
+		}
+		return permutation;
+	}
+
+	private static String itemNames(int[] items) {
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < items.length; i++) {
+			line.append(i == 0 ? "" : " ").append(itemName(items[i]));
+		}
+		return line.toString();
+	}
+
+	private static String itemName(int item) {
+		return "item-" + item;
+	}
+
+}
\ No newline at end of file
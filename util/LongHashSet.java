@@ -0,0 +1,151 @@
+package util;
+
+import java.util.Arrays;
+
+/*
+ *	The LongHashSet class is a set of primitive long values using open addressing with linear
+ *	probing. In contrast to a HashSet<Long> it does not box its values, which makes it suitable
+ *	for storing large numbers of state hashes during the optimization. The table size is always
+ *	a power of two and it grows as soon as it is half full. The value 0 is used to mark empty
+ *	slots in the table, so whether the set contains 0 is stored separately.
+ */
+
+public class LongHashSet {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private long[] table;
+	private int size;
+	private boolean containsZero;
+
+	public LongHashSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongHashSet(int expectedSize) {
+		// choose a power of two table size which holds the expected size at half load
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		table = new long[capacity];
+	}
+
+	public boolean add(long value) {
+		if (value == 0) {
+			// 0 marks empty slots so it is stored in a separate flag
+			boolean added = !containsZero;
+			containsZero = true;
+			size += added ? 1 : 0;
+			return added;
+		}
+
+		int index = slot(value, table.length);
+		// probe until we find the value or an empty slot
+		while (table[index] != 0) {
+			if (table[index] == value) {
+				return false;
+			}
+			index = (index + 1) & (table.length - 1);
+		}
+		table[index] = value;
+		size++;
+
+		// keep the table at most half full so probe sequences stay short
+		if (size * 2 > table.length) {
+			grow();
+		}
+		return true;
+	}
+
+	public boolean contains(long value) {
+		if (value == 0) {
+			return containsZero;
+		}
+
+		int index = slot(value, table.length);
+		// probe until we find the value or an empty slot
+		while (table[index] != 0) {
+			if (table[index] == value) {
+				return true;
+			}
+			index = (index + 1) & (table.length - 1);
+		}
+		return false;
+	}
+
+	public boolean remove(long value) {
+		if (value == 0) {
+			boolean removed = containsZero;
+			containsZero = false;
+			size -= removed ? 1 : 0;
+			return removed;
+		}
+
+		int index = slot(value, table.length);
+		// probe until we find the value or an empty slot
+		while (table[index] != 0) {
+			if (table[index] == value) {
+				closeGap(index);
+				size--;
+				return true;
+			}
+			index = (index + 1) & (table.length - 1);
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		// reset all slots but keep the allocated table for reuse
+		Arrays.fill(table, 0);
+		containsZero = false;
+		size = 0;
+	}
+
+	private void closeGap(int gap) {
+		int mask = table.length - 1;
+		int index = gap;
+		// move following values of the probe sequence back so that no probe sequence is interrupted
+		while (true) {
+			index = (index + 1) & mask;
+			long value = table[index];
+			if (value == 0) {
+				// end of the probe sequence -> the gap becomes an empty slot
+				table[gap] = 0;
+				return;
+			}
+			// the value can fill the gap if the gap lies between its home slot and its current slot
+			int home = slot(value, table.length);
+			if (((index - home) & mask) >= ((index - gap) & mask)) {
+				table[gap] = value;
+				gap = index;
+			}
+		}
+	}
+
+	private void grow() {
+		long[] oldTable = table;
+		table = new long[oldTable.length * 2];
+		// reinsert all values into the larger table
+		for (long value : oldTable) {
+			if (value != 0) {
+				int index = slot(value, table.length);
+				while (table[index] != 0) {
+					index = (index + 1) & (table.length - 1);
+				}
+				table[index] = value;
+			}
+		}
+	}
+
+	private static int slot(long value, int capacity) {
+		// mix the bits of the value so that similar values end up in different slots
+		long mixed = value * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32)) & (capacity - 1);
+	}
+
+}
\ No newline at end of file
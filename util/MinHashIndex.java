@@ -0,0 +1,218 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ *	The MinHashIndex class finds previously solved orders that are similar to a new order, so the
+ *	PSU selection of the similar order can be used as the initial state of an optimizer. Orders
+ *	are compared by the Jaccard similarity of their sets of item IDs, which is estimated with
+ *	MinHash: every one of the hash functions maps the items of an order to their smallest hash
+ *	value, and the probability that two orders get the same minimum equals their similarity. The
+ *	signatures are split into bands and orders sharing all values of a band are stored in the
+ *	same bucket (locality sensitive hashing), so a query only compares the orders in the buckets
+ *	of its own bands instead of every stored order. The index holds a fixed number of orders,
+ *	when it is full the least recently used order is evicted.
+ */
+
+public class MinHashIndex {
+
+	// fixed seed so that signatures are comparable between runs
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+
+	// 16 bands of 4 hash values, orders with similarity 0.5 share a bucket with probability 0.65,
+	// orders with similarity 0.8 with probability above 0.99
+	private static final int BANDS = 16;
+	private static final int ROWS = 4;
+	private static final int HASHES = BANDS * ROWS;
+
+	// estimated similarity below which a stored order is not considered similar
+	public static final double DEFAULT_MIN_SIMILARITY = 0.5;
+
+	private static final long[] hashSeeds = new long[HASHES];
+	static {
+		Random rand = new Random(SEED);
+		for (int i = 0; i < HASHES; i++) {
+			hashSeeds[i] = rand.nextLong();
+		}
+	}
+
+	private static class StoredOrder {
+		final int[] items;
+		final int[] signature;
+		final long[] bandKeys;
+		int[] selection;
+
+		StoredOrder(int[] items, int[] signature, long[] bandKeys, int[] selection) {
+			this.items = items;
+			this.signature = signature;
+			this.bandKeys = bandKeys;
+			this.selection = selection;
+		}
+	}
+
+	private final double minSimilarity;
+	// stored orders by their distinct sorted item IDs, least recently used first
+	private final LinkedHashMap<List<Integer>, StoredOrder> entries;
+	// orders sharing all hash values of a band, the key combines the band index and its values
+	private final HashMap<Long, List<StoredOrder>> buckets = new HashMap<>();
+
+	public MinHashIndex(int capacity) {
+		this(capacity, DEFAULT_MIN_SIMILARITY);
+	}
+
+	public MinHashIndex(final int capacity, double minSimilarity) {
+		this.minSimilarity = minSimilarity;
+		this.entries = new LinkedHashMap<List<Integer>, StoredOrder>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<List<Integer>, StoredOrder> eldest) {
+			        if (size() > capacity) {
+			                // the index is full -> remove the least recently used order from its buckets
+			                removeFromBuckets(eldest.getValue());
+			                return true;
+			        }
+			        return false;
+			}
+		};
+	}
+
+	public synchronized void put(int[] order, int[] selection) {
+		int[] items = distinct(order);
+		if (items.length == 0) {
+			return;
+		}
+		List<Integer> key = key(items);
+		StoredOrder stored = entries.get(key);
+		if (stored != null) {
+			// the order was solved before -> keep the newer selection
+			stored.selection = selection;
+			return;
+		}
+
+		int[] signature = signature(items);
+		stored = new StoredOrder(items, signature, bandKeys(signature), selection);
+		for (long bandKey : stored.bandKeys) {
+			List<StoredOrder> bucket = buckets.get(bandKey);
+			if (bucket == null) {
+				bucket = new ArrayList<>(1);
+				buckets.put(bandKey, bucket);
+			}
+			bucket.add(stored);
+		}
+		entries.put(key, stored);
+	}
+
+	public synchronized int[] nearest(int[] order) {
+		// selection of the most similar stored order, null if no stored order is similar enough
+		int[] items = distinct(order);
+		if (items.length == 0) {
+			return null;
+		}
+		StoredOrder exact = entries.get(key(items));
+		if (exact != null) {
+			return exact.selection;
+		}
+
+		int[] signature = signature(items);
+		StoredOrder best = null;
+		int bestMatches = (int) Math.ceil(minSimilarity * HASHES) - 1;
+		for (long bandKey : bandKeys(signature)) {
+			List<StoredOrder> bucket = buckets.get(bandKey);
+			if (bucket == null) {
+				continue;
+			}
+			for (StoredOrder candidate : bucket) {
+				// the share of equal hash values estimates the similarity of the two orders
+				int matches = 0;
+				for (int i = 0; i < HASHES; i++) {
+					matches += candidate.signature[i] == signature[i] ? 1 : 0;
+				}
+				if (bestMatches < matches) {
+					best = candidate;
+					bestMatches = matches;
+				}
+			}
+		}
+		if (best == null) {
+			return null;
+		}
+		// mark the order as recently used
+		entries.get(key(best.items));
+		return best.selection;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private void removeFromBuckets(StoredOrder stored) {
+		for (long bandKey : stored.bandKeys) {
+			List<StoredOrder> bucket = buckets.get(bandKey);
+			bucket.remove(stored);
+			if (bucket.isEmpty()) {
+				buckets.remove(bandKey);
+			}
+		}
+	}
+
+	private static int[] signature(int[] items) {
+		int[] signature = new int[HASHES];
+		for (int i = 0; i < HASHES; i++) {
+			long hashSeed = hashSeeds[i];
+			int min = Integer.MAX_VALUE;
+			for (int item : items) {
+				min = Math.min(min, mix(item ^ hashSeed));
+			}
+			signature[i] = min;
+		}
+		return signature;
+	}
+
+	private static long[] bandKeys(int[] signature) {
+		long[] keys = new long[BANDS];
+		for (int band = 0; band < BANDS; band++) {
+			long key = band;
+			for (int row = 0; row < ROWS; row++) {
+				key = key * 0x9E3779B97F4A7C15L + signature[band * ROWS + row];
+			}
+			keys[band] = key;
+		}
+		return keys;
+	}
+
+	private static int mix(long value) {
+		// finalizer of MurmurHash3, every input bit affects every output bit
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB9FE1A85EC53L;
+		value ^= value >>> 33;
+		return (int) value;
+	}
+
+	private static int[] distinct(int[] order) {
+		// the similarity of orders only depends on which items were ordered
+		int[] sorted = order.clone();
+		Arrays.sort(sorted);
+		int count = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				sorted[count++] = sorted[i];
+			}
+		}
+		return Arrays.copyOf(sorted, count);
+	}
+
+	private static List<Integer> key(int[] items) {
+		List<Integer> key = new ArrayList<>(items.length);
+		for (int item : items) {
+			key.add(item);
+		}
+		return key;
+	}
+
+}
@@ -9,19 +9,27 @@ import java.util.ArrayList;
 
 import frame.PSU;
 
+import monitoring.Metrics.Phase;
+import monitoring.ParseEvent;
+
 /*
  *	The Parser class takes care of loading and parsing warehouse configuration and order files.
  *	The file paths are provided by the user via the GUI built in the Window class. Warehouse files
  *	list all items in the first line, separated by spaces, followed by a blank line and the provides
  *	a PSU with the items it carries in every following line of the file. The order file consists of
- *	just one line containing all the ordered item names. The parser uses the PSU class to create
- *	a mapping from item name to an index by just counting up from zero up to the total number of
- *	items. It also catches errors in the loaded files and returns appropriate error values.
+ *	just one line containing all the ordered item names. An optional cost file contains the cost of
+ *	every PSU (e.g. the distance it has to travel) as an integer per line, in the order of the PSUs
+ *	in the warehouse file. The parser uses the PSU class to create a mapping from item name to an
+ *	index by just counting up from zero up to the total number of items. It also catches errors in
+ *	the loaded files and returns appropriate error values.
  */
 
 public class Parser {
 
 	public static PSU[] parseWarehouse(String path) {
+		long startTime = Phase.PARSE.start();
+		ParseEvent event = ParseEvent.start("warehouse", path);
+		int psuCount = -1;
 		try {
 			BufferedReader reader = new BufferedReader(new FileReader(path));
 
@@ -55,6 +63,7 @@ public class Parser {
 			if (psus.size() == 0) {
 				return null;
 			}
+			psuCount = psus.size();
 
 			// transform PSU list into array and return
 			PSU[] psuArr = new PSU[psus.size()];
@@ -62,10 +71,60 @@ public class Parser {
 		} catch (IOException e) {
 			System.err.println(e.getMessage());
 			return null;
+		} finally {
+			Phase.PARSE.stop(startTime);
+			event.finish(Math.max(psuCount, 0), psuCount != -1);
+		}
+	}
+
+	public static long[] parseCosts(String path) {
+		long startTime = Phase.PARSE.start();
+		ParseEvent event = ParseEvent.start("costs", path);
+		int costCount = -1;
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(path));
+
+			// read one cost per line, empty lines are skipped
+			ArrayList<Long> costs = new ArrayList<>();
+			String line = null;
+			while ((line = reader.readLine()) != null) {
+				if (!line.trim().isEmpty()) {
+					costs.add(Long.parseLong(line.trim()));
+				}
+			}
+			reader.close();
+
+			long[] costArr = new long[costs.size()];
+			long total = 0;
+			for (int i = 0; i < costArr.length; i++) {
+				// a negative cost would make selecting more PSUs attractive
+				if (costs.get(i) < 0) {
+					return null;
+				}
+				costArr[i] = costs.get(i);
+				total = Math.addExact(total, costArr[i]);
+			}
+			// the exact score weights every covered item with the total cost plus one, an order with
+			// one item per PSU has to fit into a long (Problem checks the actual order size)
+			Math.multiplyExact(costArr.length, Math.addExact(total, 1));
+			costCount = costArr.length;
+			return costArr;
+		} catch (ArithmeticException e) {
+			System.err.println("The costs in " + path + " are too large for the exact score");
+			return null;
+		} catch (IOException | NumberFormatException e) {
+			System.err.println(e.getMessage());
+			return null;
+		} finally {
+			Phase.PARSE.stop(startTime);
+			event.finish(Math.max(costCount, 0), costCount != -1);
 		}
 	}
 
 	public static int[] parseOrder(String path) {
+		long startTime = Phase.PARSE.start();
+		ParseEvent event = ParseEvent.start("order", path);
+		int itemCount = -1;
 		try {
 			BufferedReader reader = new BufferedReader(new FileReader(path));
 
@@ -79,10 +138,15 @@ public class Parser {
 			}
 
 			// return item IDs provided by the name-index mapping
-			return PSU.indices(itemArr);
+			int[] indices = PSU.indices(itemArr);
+			itemCount = indices == null ? -1 : indices.length;
+			return indices;
 		} catch (IOException e) {
 			System.err.println(e.getMessage());
 			return null;
+		} finally {
+			Phase.PARSE.stop(startTime);
+			event.finish(Math.max(itemCount, 0), itemCount != -1);
 		}
 	}
 
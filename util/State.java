@@ -1,6 +1,8 @@
 package util;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+
+import monitoring.Metrics.Counter;
 
 /*
  *	The State class implements static operations to generate new random states, neighbourhoods
@@ -11,13 +13,50 @@ import java.util.Random;
  *	states around the given one where a single entry in the state array is flipped. This ensures
  *	that all possible states can be reached and that the neighbourhood does not grow too large to
  *	iterate over.
+ *	Every optimizer run draws its own seed and uses its own random number generator, so a run
+ *	(and every thread it starts) does not share a generator with other runs and the seed it records
+ *	reproduces it. Stages that start runs on their own threads (the portfolio, the decomposition)
+ *	give every thread a seed of their own from which the runs of the thread draw their seeds, so
+ *	the whole stage is reproduced by its seed as well.
  */
 
 public class State {
 
-	private static Random rand = new Random();
+	// seed of the next run, -Dwarehouse.seed=n makes the first run use the seed n and the following
+	// runs use seeds derived from it
+	private static long nextSeed = Long.getLong("warehouse.seed", System.nanoTime());
+
+	// seed generator of the current thread, null if the thread draws from the global sequence
+	private static final ThreadLocal<SplittableRandom> threadSeeds = new ThreadLocal<>();
+
+	public static synchronized void setSeed(long seed) {
+		// the next run drawing from the global sequence uses this seed
+		nextSeed = seed;
+	}
+
+	public static long nextSeed() {
+		// runs started by a seeded thread draw from the thread's seed generator
+		SplittableRandom seeds = threadSeeds.get();
+		if (seeds != null) {
+			return seeds.nextLong();
+		}
+		synchronized (State.class) {
+			long seed = nextSeed;
+			nextSeed = new SplittableRandom(seed).nextLong();
+			return seed;
+		}
+	}
+
+	public static void setThreadSeed(long seed) {
+		// the runs of the current thread draw their seeds from a generator seeded with the seed
+		threadSeeds.set(new SplittableRandom(seed));
+	}
+
+	public static void clearThreadSeed() {
+		threadSeeds.remove();
+	}
 
-	public static boolean[] randomState(int size) {
+	public static boolean[] randomState(int size, SplittableRandom rand) {
 		boolean[] mask = new boolean[size];
 		// initialize a random boolean array
 		for (int i = 0; i < mask.length; i++) {
@@ -36,14 +75,16 @@ public class State {
 			// flip the ith boolean in the new state array
 			neighbourhood[i][i] = !neighbourhood[i][i];
 		}
+		Counter.NEIGHBOURS_GENERATED.add(neighbourhood.length);
 		return neighbourhood;
 	}
 
-	public static boolean[] randomNeighbour(boolean[] state) {
+	public static boolean[] randomNeighbour(boolean[] state, SplittableRandom rand) {
 		boolean[] neighbour = state.clone();
 		// flip a random boolean in the new state array
 		int index = rand.nextInt(neighbour.length);
 		neighbour[index] = !neighbour[index];
+		Counter.NEIGHBOURS_GENERATED.increment();
 		return neighbour;
 	}
 
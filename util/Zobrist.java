@@ -0,0 +1,50 @@
+package util;
+
+import java.util.Random;
+
+/*
+ *	The Zobrist class implements Zobrist hashing of states. Every PSU index is assigned a random
+ *	64 bit key and the hash of a state is the XOR of the keys of all selected PSUs. Since XOR is
+ *	its own inverse, the hash of a neighbour (a state with a single flipped PSU) is obtained by
+ *	XORing the key of the flipped PSU into the hash of the original state. This allows to keep
+ *	the hash of a state up to date incrementally while it is being modified by a local search.
+ */
+
+public class Zobrist {
+
+	// fixed seed so that hashes are comparable between runs
+	private static final long SEED = 0x5DEECE66DL;
+
+	private static volatile long[] keys = new long[0];
+
+	public static long hash(boolean[] state) {
+		long[] stateKeys = keys(state.length);
+		long hash = 0;
+		// combine the keys of all selected PSUs
+		for (int i = 0; i < state.length; i++) {
+			if (state[i]) {
+				hash ^= stateKeys[i];
+			}
+		}
+		return hash;
+	}
+
+	public static long flip(long hash, int index) {
+		// flipping a PSU toggles its key in the hash
+		return hash ^ keys[index];
+	}
+
+	private static synchronized long[] keys(int size) {
+		if (keys.length < size) {
+			// generate keys for all PSU indices, the keys of smaller indices stay the same
+			long[] newKeys = new long[size];
+			Random rand = new Random(SEED);
+			for (int i = 0; i < newKeys.length; i++) {
+				newKeys[i] = rand.nextLong();
+			}
+			keys = newKeys;
+		}
+		return keys;
+	}
+
+}
\ No newline at end of file